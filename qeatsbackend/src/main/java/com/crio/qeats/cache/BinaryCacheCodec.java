@@ -0,0 +1,254 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Stores cells in a compact schema-specific binary format.
+ * Every string is written once into a dictionary at the start of the cell and referenced by
+ * index afterwards, so the cities, timings and attributes that most restaurants share cost a
+ * byte or two each. Cells larger than {@link #COMPRESSION_THRESHOLD_IN_BYTES} are deflated.
+ *
+ * <p>Layout: format byte, then the body, deflated for {@link #FORMAT_DEFLATED}.
+ * Body: computedAt, computeTimeInMillis, expiresAt as longs, the dictionary as a varint count
+ * followed by UTF strings, then a varint restaurant count and per restaurant the string
+ * references of restaurantId, name, city, imageUrl, opensAt and closesAt, latitude and
+ * longitude as doubles (NaN for null), opening minutes as shorts and the attribute references.
+ * References and counts are varints shifted by one so that 0 encodes null.</p>
+ *
+ * <p>Decoding checks every count against the bytes left in the body before allocating, so a
+ * corrupt cell fails with an {@link IOException} instead of exhausting the heap.</p>
+ */
+public class BinaryCacheCodec implements CacheCodec {
+
+  static final byte FORMAT_PLAIN = 1;
+  static final byte FORMAT_DEFLATED = 2;
+  static final int COMPRESSION_THRESHOLD_IN_BYTES = 1024;
+
+  // Smallest encodings: a UTF string is its 2 byte length, a restaurant six 1 byte references,
+  // two doubles, two shorts and a 1 byte attribute count, an attribute a 1 byte reference.
+  private static final int MIN_STRING_BYTES = 2;
+  private static final int MIN_RESTAURANT_BYTES = 6 + 16 + 4 + 1;
+  private static final int MIN_ATTRIBUTE_BYTES = 1;
+
+  @Override
+  public byte[] encode(CachedCell cell) throws IOException {
+    Map<String, Integer> dictionary = new HashMap<>();
+    List<String> strings = new ArrayList<>();
+    ByteArrayOutputStream restaurants = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(restaurants);
+
+    List<CachedRestaurant> cachedRestaurants = cell.getRestaurants();
+    writeCount(out, cachedRestaurants);
+    if (cachedRestaurants != null) {
+      for (CachedRestaurant cachedRestaurant : cachedRestaurants) {
+        Restaurant restaurant = cachedRestaurant.getRestaurant();
+        writeString(out, restaurant.getRestaurantId(), dictionary, strings);
+        writeString(out, restaurant.getName(), dictionary, strings);
+        writeString(out, restaurant.getCity(), dictionary, strings);
+        writeString(out, restaurant.getImageUrl(), dictionary, strings);
+        writeString(out, restaurant.getOpensAt(), dictionary, strings);
+        writeString(out, restaurant.getClosesAt(), dictionary, strings);
+        writeDouble(out, restaurant.getLatitude());
+        writeDouble(out, restaurant.getLongitude());
+        out.writeShort(cachedRestaurant.getOpensAt());
+        out.writeShort(cachedRestaurant.getClosesAt());
+        writeCount(out, restaurant.getAttributes());
+        if (restaurant.getAttributes() != null) {
+          for (String attribute : restaurant.getAttributes()) {
+            writeString(out, attribute, dictionary, strings);
+          }
+        }
+      }
+    }
+    out.flush();
+
+    ByteArrayOutputStream body = new ByteArrayOutputStream(restaurants.size() + 64);
+    DataOutputStream header = new DataOutputStream(body);
+    header.writeLong(cell.getComputedAt());
+    header.writeLong(cell.getComputeTimeInMillis());
+    header.writeLong(cell.getExpiresAt());
+    writeVarInt(header, strings.size());
+    for (String string : strings) {
+      header.writeUTF(string);
+    }
+    header.flush();
+    restaurants.writeTo(body);
+
+    ByteArrayOutputStream encoded = new ByteArrayOutputStream(body.size() + 1);
+    if (body.size() < COMPRESSION_THRESHOLD_IN_BYTES) {
+      encoded.write(FORMAT_PLAIN);
+      body.writeTo(encoded);
+    } else {
+      encoded.write(FORMAT_DEFLATED);
+      Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+      try (DeflaterOutputStream deflated = new DeflaterOutputStream(encoded, deflater)) {
+        body.writeTo(deflated);
+      } finally {
+        deflater.end();
+      }
+    }
+    return encoded.toByteArray();
+  }
+
+  @Override
+  public CachedCell decode(byte[] bytes) throws IOException {
+    if (bytes.length == 0) {
+      throw new IOException("Empty cache cell");
+    }
+
+    InputStream body = new ByteArrayInputStream(bytes, 1, bytes.length - 1);
+    if (bytes[0] == FORMAT_DEFLATED) {
+      body = new ByteArrayInputStream(inflate(body));
+    } else if (bytes[0] != FORMAT_PLAIN) {
+      throw new IOException("Unknown cache cell format " + bytes[0]);
+    }
+
+    // The body is fully in memory here, so available() is exactly the bytes left to decode.
+    try (DataInputStream in = new DataInputStream(body)) {
+      CachedCell cell = new CachedCell();
+      cell.setComputedAt(in.readLong());
+      cell.setComputeTimeInMillis(in.readLong());
+      cell.setExpiresAt(in.readLong());
+
+      String[] strings = new String[readLength(in, MIN_STRING_BYTES)];
+      for (int i = 0; i < strings.length; i++) {
+        strings[i] = in.readUTF();
+      }
+
+      int restaurantCount = readCount(in, MIN_RESTAURANT_BYTES);
+      if (restaurantCount >= 0) {
+        List<CachedRestaurant> cachedRestaurants = new ArrayList<>(restaurantCount);
+        for (int i = 0; i < restaurantCount; i++) {
+          Restaurant restaurant = new Restaurant();
+          restaurant.setRestaurantId(readString(in, strings));
+          restaurant.setName(readString(in, strings));
+          restaurant.setCity(readString(in, strings));
+          restaurant.setImageUrl(readString(in, strings));
+          restaurant.setOpensAt(readString(in, strings));
+          restaurant.setClosesAt(readString(in, strings));
+          restaurant.setLatitude(readDouble(in));
+          restaurant.setLongitude(readDouble(in));
+          int opensAt = in.readShort();
+          int closesAt = in.readShort();
+
+          int attributeCount = readCount(in, MIN_ATTRIBUTE_BYTES);
+          if (attributeCount >= 0) {
+            List<String> attributes = new ArrayList<>(attributeCount);
+            for (int j = 0; j < attributeCount; j++) {
+              attributes.add(readString(in, strings));
+            }
+            restaurant.setAttributes(attributes);
+          }
+          cachedRestaurants.add(new CachedRestaurant(restaurant, opensAt, closesAt));
+        }
+        cell.setRestaurants(cachedRestaurants);
+      }
+      return cell;
+    } catch (IndexOutOfBoundsException e) {
+      throw new IOException("Corrupt cache cell", e);
+    }
+  }
+
+  private static void writeString(DataOutputStream out, String string,
+      Map<String, Integer> dictionary, List<String> strings) throws IOException {
+    if (string == null) {
+      writeVarInt(out, 0);
+      return;
+    }
+    Integer index = dictionary.get(string);
+    if (index == null) {
+      index = strings.size();
+      dictionary.put(string, index);
+      strings.add(string);
+    }
+    writeVarInt(out, index + 1);
+  }
+
+  private static String readString(DataInputStream in, String[] strings) throws IOException {
+    int reference = readVarInt(in);
+    return reference == 0 ? null : strings[reference - 1];
+  }
+
+  private static void writeCount(DataOutputStream out, List<?> list) throws IOException {
+    writeVarInt(out, list == null ? 0 : list.size() + 1);
+  }
+
+  // Returns -1 for a null list.
+  private static int readCount(DataInputStream in, int minEntryBytes) throws IOException {
+    int count = readVarInt(in) - 1;
+    return count == -1 ? -1 : checkLength(in, count, minEntryBytes);
+  }
+
+  private static int readLength(DataInputStream in, int minEntryBytes) throws IOException {
+    return checkLength(in, readVarInt(in), minEntryBytes);
+  }
+
+  private static int checkLength(DataInputStream in, int length, int minEntryBytes)
+      throws IOException {
+    if (length < 0 || length > in.available() / minEntryBytes) {
+      throw new IOException("Corrupt cache cell: " + length + " entries in "
+          + in.available() + " bytes");
+    }
+    return length;
+  }
+
+  private static void writeDouble(DataOutputStream out, Double value) throws IOException {
+    out.writeDouble(value == null ? Double.NaN : value);
+  }
+
+  private static Double readDouble(DataInputStream in) throws IOException {
+    double value = in.readDouble();
+    return Double.isNaN(value) ? null : value;
+  }
+
+  private static byte[] inflate(InputStream deflated) throws IOException {
+    ByteArrayOutputStream inflated = new ByteArrayOutputStream();
+    byte[] buffer = new byte[4096];
+    try (InflaterInputStream in = new InflaterInputStream(deflated)) {
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        inflated.write(buffer, 0, read);
+      }
+    }
+    return inflated.toByteArray();
+  }
+
+  private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static int readVarInt(DataInputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed varint");
+  }
+}
@@ -0,0 +1,23 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import java.io.IOException;
+
+/**
+ * Converts cache cells to and from the bytes stored in Redis.
+ */
+public interface CacheCodec {
+
+  byte[] encode(CachedCell cell) throws IOException;
+
+  /**
+   * Decodes bytes written by {@link #encode(CachedCell)}.
+   * @throws IOException if the bytes are not in this codec's format
+   */
+  CachedCell decode(byte[] bytes) throws IOException;
+}
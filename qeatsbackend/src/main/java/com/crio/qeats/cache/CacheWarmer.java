@@ -0,0 +1,195 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.repositoryservices.RestaurantRepositoryServiceImpl;
+import com.crio.qeats.utils.GeoUtils;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fills the restaurant cell cache ahead of demand, so the first lookups of a peak window are
+ * not the ones paying for database scans.
+ * Shortly before each peak window the cells around the most looked up locations are loaded
+ * into Redis for the peak serving radius. On startup, before any traffic has been seen, the
+ * cells holding the most restaurants are loaded instead.
+ * Cells are loaded in batches, at most parallelism batches at a time, off the scheduler thread.
+ */
+@Component
+@Log4j2
+@ConditionalOnProperty(name = "qeats.restaurant-repository-service", havingValue = "mongo",
+    matchIfMissing = true)
+public class CacheWarmer {
+
+  @Autowired
+  private RestaurantRepositoryServiceImpl restaurantRepositoryService;
+
+  @Autowired
+  private HotCellTracker hotCellTracker;
+
+  @Value("${qeats.cache.warm-up.enabled:true}")
+  private boolean enabled = true;
+  // Number of lookup locations whose surroundings are warmed.
+  @Value("${qeats.cache.warm-up.hot-cells:200}")
+  private int hotCells = 200;
+  @Value("${qeats.cache.warm-up.batch-size:32}")
+  private int batchSize = 32;
+  @Value("${qeats.cache.warm-up.parallelism:2}")
+  private int parallelism = 2;
+  // Batches waiting for a warm-up thread, batches beyond this are not loaded.
+  @Value("${qeats.cache.warm-up.queue-capacity:256}")
+  private int queueCapacity = 256;
+
+  // Start and end hours of the peak windows, as in RestaurantServiceImpl's serving radius.
+  private static final int[][] PEAK_WINDOWS = {{8, 10}, {13, 14}, {19, 21}};
+
+  private ThreadPoolTaskExecutor warmUpExecutor;
+  private final AtomicBoolean warming = new AtomicBoolean();
+
+  @PostConstruct
+  public void initWarmUpExecutor() {
+    warmUpExecutor = new ThreadPoolTaskExecutor();
+    warmUpExecutor.setCorePoolSize(parallelism);
+    warmUpExecutor.setMaxPoolSize(parallelism);
+    warmUpExecutor.setQueueCapacity(queueCapacity);
+    warmUpExecutor.setDaemon(true);
+    warmUpExecutor.setThreadNamePrefix("cache-warm-up-");
+    warmUpExecutor.initialize();
+  }
+
+  @PreDestroy
+  public void shutdownWarmUpExecutor() {
+    warmUpExecutor.shutdown();
+  }
+
+  /**
+   * Runs ten minutes before the peak windows starting at 8AM, 1PM and 7PM, warming the cells
+   * looked up most in the same window the day before.
+   */
+  @Scheduled(cron = "${qeats.cache.warm-up.cron:0 50 7,12,18 * * *}")
+  public void warmUpBeforePeak() {
+    if (!enabled) {
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    int[] window = findNextPeakWindow(now.getHour());
+    List<String> hottestCells = hotCellTracker.findHottestCells(hotCells, now, window[0],
+        window[1]);
+    if (hottestCells.isEmpty()) {
+      log.info("No lookups seen in the {}:00 peak window, skipping the cache warm-up",
+          window[0]);
+      return;
+    }
+    warmUp("peak", hottestCells);
+  }
+
+  // First peak window starting after the given hour, the morning one after the last.
+  static int[] findNextPeakWindow(int hour) {
+    for (int[] window : PEAK_WINDOWS) {
+      if (window[0] > hour) {
+        return window;
+      }
+    }
+    return PEAK_WINDOWS[0];
+  }
+
+  /**
+   * Seeds the cache after startup from where restaurants are, no lookups have been seen yet.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUpOnStartup() {
+    if (!enabled) {
+      return;
+    }
+    CompletableFuture.supplyAsync(() -> restaurantRepositoryService.findDensestCells(hotCells),
+        warmUpExecutor)
+        .thenCompose(densestCells -> warmUp("startup", densestCells))
+        .exceptionally(e -> {
+          e.printStackTrace();
+          return 0;
+        });
+  }
+
+  /**
+   * Loads every cell a peak hours lookup from one of the given cells could read.
+   * Returns at once, the cells are loaded in the background; a warm-up that starts while the
+   * previous one is still running is skipped.
+   */
+  public CompletableFuture<Integer> warmUp(String reason, List<String> lookupCells) {
+    if (!enabled || lookupCells.isEmpty() || !warming.compareAndSet(false, true)) {
+      return CompletableFuture.completedFuture(0);
+    }
+
+    List<String> cells = new ArrayList<>(findCellsAround(lookupCells));
+    long startedAt = System.currentTimeMillis();
+    AtomicInteger loadedCells = new AtomicInteger();
+    List<CompletableFuture<Void>> batches = new ArrayList<>();
+    for (int from = 0; from < cells.size(); from += batchSize) {
+      List<String> batch = cells.subList(from, Math.min(from + batchSize, cells.size()));
+      try {
+        batches.add(CompletableFuture.runAsync(() -> {
+          try {
+            loadedCells.addAndGet(restaurantRepositoryService.warmUpCells(batch));
+          } catch (RuntimeException e) {
+            e.printStackTrace();
+          }
+        }, warmUpExecutor));
+      } catch (TaskRejectedException e) {
+        log.warn("Cache warm-up on {} queued too many batches, skipping {} of {} cells", reason,
+            cells.size() - from, cells.size());
+        break;
+      }
+    }
+
+    return CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0]))
+        .handle((done, e) -> {
+          warming.set(false);
+          log.info("Cache warm-up on {} loaded {} of {} cells in {} ms", reason,
+              loadedCells.get(), cells.size(), System.currentTimeMillis() - startedAt);
+          return loadedCells.get();
+        });
+  }
+
+  /**
+   * Cells within the peak serving radius of any point of the given cells.
+   */
+  private static Set<String> findCellsAround(List<String> lookupCells) {
+    Set<String> cells = new LinkedHashSet<>();
+    for (String lookupCell : lookupCells) {
+      BoundingBox box = GeoHash.fromGeohashString(lookupCell).getBoundingBox();
+      WGS84Point center = box.getCenter();
+      double halfDiagonalInKms = GeoUtils.findDistanceInKm(center.getLatitude(),
+          center.getLongitude(), box.getNorthLatitude(), box.getEastLongitude());
+      cells.addAll(GeoUtils.findGeoHashesCovering(center.getLatitude(), center.getLongitude(),
+          GlobalConstants.PEAK_HOURS_SERVING_RADIUS_IN_KMS + halfDiagonalInKms,
+          GlobalConstants.REDIS_CELL_GEOHASH_PRECISION));
+    }
+    return cells;
+  }
+}
@@ -0,0 +1,45 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A cache cell together with when it was computed, how long that took and when it should be
+ * recomputed. Redis keeps the cell for a while after expiresAt so it can still be served while
+ * a refresh runs.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CachedCell {
+
+  // Values above 1 favour earlier refreshes, values below 1 later ones.
+  private static final double EARLY_REFRESH_BETA = 1.0;
+
+  private List<CachedRestaurant> restaurants;
+
+  private long computedAt;
+
+  private long computeTimeInMillis;
+
+  private long expiresAt;
+
+  /**
+   * Decides whether this read should trigger a refresh, see "Optimal Probabilistic Cache
+   * Stampede Prevention" (Vattani et al.). The closer to expiry and the costlier the cell is to
+   * compute, the more likely a read refreshes it early, so refreshes of a hot cell are spread
+   * out ahead of expiry instead of all coinciding with it.
+   * @param random uniformly distributed in (0, 1]
+   */
+  public boolean isDueForRefresh(long now, double random) {
+    return now - computeTimeInMillis * EARLY_REFRESH_BETA * Math.log(random) >= expiresAt;
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.RestaurantSnapshot;
+import com.crio.qeats.utils.OpeningHours;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A restaurant as stored in a cache cell.
+ * Entries are cached regardless of whether the restaurant is open, the opening hours are kept
+ * as minute-of-day so the open-now check can run cheaply on every read.
+ */
+@Data
+@NoArgsConstructor
+public class CachedRestaurant {
+
+  private Restaurant restaurant;
+
+  private int opensAt;
+
+  private int closesAt;
+
+  public CachedRestaurant(Restaurant restaurant, int opensAt, int closesAt) {
+    setRestaurant(restaurant);
+    this.opensAt = opensAt;
+    this.closesAt = closesAt;
+  }
+
+  /**
+   * Cached restaurants are shared between requests, so only an unmodifiable snapshot is kept.
+   */
+  public void setRestaurant(Restaurant restaurant) {
+    this.restaurant = restaurant == null ? null : RestaurantSnapshot.of(restaurant);
+  }
+
+  /**
+   * Wraps a restaurant whose opensAt and closesAt are "HH:mm" strings.
+   */
+  public static CachedRestaurant of(Restaurant restaurant) {
+    return new CachedRestaurant(restaurant,
+        OpeningHours.toMinuteOfDay(restaurant.getOpensAt()),
+        OpeningHours.toMinuteOfDay(restaurant.getClosesAt()));
+  }
+
+  public boolean isOpenAt(int minuteOfDay) {
+    return OpeningHours.isOpen(opensAt, closesAt, minuteOfDay);
+  }
+}
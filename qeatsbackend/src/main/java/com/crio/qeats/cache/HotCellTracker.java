@@ -0,0 +1,114 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.globals.GlobalConstants;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts nearby lookups per cache cell of the caller's location and per hour of the day, so
+ * that the cells busiest in a peak window can be warmed before the same window the next day.
+ * Each hour keeps the counts of the last day it was seen, they start over the first time the
+ * hour comes round again.
+ */
+@Component
+public class HotCellTracker {
+
+  // New cells are ignored while this many are tracked in the current hour.
+  @Value("${qeats.cache.warm-up.max-tracked-cells:10000}")
+  private int maxTrackedCells = 10000;
+
+  private final HourOfDay[] hours = new HourOfDay[24];
+
+  public HotCellTracker() {
+    for (int hour = 0; hour < hours.length; hour++) {
+      hours[hour] = new HourOfDay();
+    }
+  }
+
+  public void record(double latitude, double longitude) {
+    record(latitude, longitude, LocalDateTime.now());
+  }
+
+  void record(double latitude, double longitude, LocalDateTime at) {
+    String cell = GeoHash.geoHashStringWithCharacterPrecision(latitude, longitude,
+        GlobalConstants.REDIS_CELL_GEOHASH_PRECISION);
+    ConcurrentMap<String, AtomicLong> lookupsByCell =
+        hours[at.getHour()].lookupsOn(at.toLocalDate());
+    AtomicLong lookups = lookupsByCell.get(cell);
+    if (lookups == null) {
+      if (lookupsByCell.size() >= maxTrackedCells) {
+        return;
+      }
+      lookups = lookupsByCell.computeIfAbsent(cell, key -> new AtomicLong());
+    }
+    lookups.incrementAndGet();
+  }
+
+  /**
+   * Most looked up cells between fromHour and toHour, counted on the day of now or the day
+   * before; hours last seen earlier than that are left out.
+   * @return at most count geohashes
+   */
+  public List<String> findHottestCells(int count, LocalDateTime now, int fromHour,
+      int toHour) {
+    LocalDate yesterday = now.toLocalDate().minusDays(1);
+    Map<String, Long> lookupsByCell = new HashMap<>();
+    for (int hour = fromHour; hour < toHour; hour++) {
+      HourOfDay hourOfDay = hours[hour];
+      if (hourOfDay.day == null || hourOfDay.day.isBefore(yesterday)) {
+        continue;
+      }
+      for (Map.Entry<String, AtomicLong> cell : hourOfDay.lookupsByCell.entrySet()) {
+        lookupsByCell.merge(cell.getKey(), cell.getValue().get(), Long::sum);
+      }
+    }
+
+    List<Map.Entry<String, Long>> cells = new ArrayList<>();
+    for (Map.Entry<String, Long> cell : lookupsByCell.entrySet()) {
+      cells.add(new AbstractMap.SimpleImmutableEntry<>(cell.getKey(), cell.getValue()));
+    }
+    cells.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+
+    List<String> hottestCells = new ArrayList<>();
+    for (int i = 0; i < cells.size() && i < count; i++) {
+      hottestCells.add(cells.get(i).getKey());
+    }
+    return hottestCells;
+  }
+
+  private static class HourOfDay {
+
+    private volatile LocalDate day;
+    private volatile ConcurrentMap<String, AtomicLong> lookupsByCell = new ConcurrentHashMap<>();
+
+    // Counts of the given day, dropping those of an earlier one.
+    ConcurrentMap<String, AtomicLong> lookupsOn(LocalDate today) {
+      if (!today.equals(day)) {
+        synchronized (this) {
+          if (!today.equals(day)) {
+            lookupsByCell = new ConcurrentHashMap<>();
+            day = today;
+          }
+        }
+      }
+      return lookupsByCell;
+    }
+  }
+}
@@ -0,0 +1,29 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+
+/**
+ * Stores cells as Jackson JSON, easy to inspect with redis-cli but larger and slower to read
+ * than {@link BinaryCacheCodec}.
+ */
+public class JsonCacheCodec implements CacheCodec {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Override
+  public byte[] encode(CachedCell cell) throws IOException {
+    return objectMapper.writeValueAsBytes(cell);
+  }
+
+  @Override
+  public CachedCell decode(byte[] bytes) throws IOException {
+    return objectMapper.readValue(bytes, CachedCell.class);
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import ch.hsr.geohash.WGS84Point;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.utils.GeoUtils;
+import com.crio.qeats.utils.OpeningHours;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process cache of search results, keyed by the normalized search string, the small geohash
+ * cell of the caller, the serving radius and a time bucket.
+ * An entry holds the open matches around the whole cell, searched from the cell centre with
+ * the radius widened by half the cell diagonal. Each request then keeps the matches within its
+ * own radius that are still open at its own time, so every caller in the cell gets the same
+ * answer as an uncached search, except for restaurants opening later in the time bucket than
+ * the search that filled the entry.
+ * Searches without any match around the cell are kept for a shorter time.
+ * A search asked for a page keeps only the first matches it needs, in rank order. Filtering
+ * keeps that order, so such an entry still answers every request whose page it fills; the
+ * others search again for more matches and replace it.
+ */
+@Component
+public class SearchResultCache {
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  // Precision 6 cells are ~1.2km x 0.6km, a small widening of the serving radius.
+  private static final int CELL_GEOHASH_PRECISION = 6;
+
+  @Value("${qeats.cache.search.maximum-size:10000}")
+  private long maximumSize = 10000;
+  // Entries are only used within their time bucket, and expire with it.
+  @Value("${qeats.cache.search.time-bucket-in-minutes:5}")
+  private int timeBucketInMinutes = 5;
+  @Value("${qeats.cache.search.empty-expiry-in-seconds:60}")
+  private long emptyExpiryInSeconds = 60;
+
+  private Cache<String, SearchResults> results;
+  private Cache<String, Boolean> emptyResults;
+
+  /**
+   * Searches the repositories for restaurants open now around a location, with the search
+   * string already normalized. With a limit, only the first limit matches are returned.
+   */
+  public interface Search {
+    List<Restaurant> find(double latitude, double longitude, String searchFor,
+        double servingRadiusInKms, Integer limit);
+  }
+
+  @PostConstruct
+  public void initCache() {
+    results = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(timeBucketInMinutes, TimeUnit.MINUTES)
+        .build();
+    emptyResults = CacheBuilder.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(emptyExpiryInSeconds, TimeUnit.SECONDS)
+        .build();
+  }
+
+  /**
+   * Trims the search string and collapses runs of whitespace. Case is kept, since the
+   * repositories match names and attributes case sensitively.
+   */
+  public static String normalize(String searchFor) {
+    return WHITESPACE.matcher(searchFor.trim()).replaceAll(" ");
+  }
+
+  /**
+   * Finds the open restaurants matching searchFor within the serving radius, from the cache or
+   * by running search around the caller's cell. Concurrent misses on one key share one search.
+   * @param wanted how many matches the caller needs at most, null for all of them
+   * @return matches in the order search returned them, at least wanted of them when there are
+   *     that many
+   */
+  public List<Restaurant> find(double latitude, double longitude, String searchFor,
+      LocalTime currentTime, double servingRadiusInKms, Integer wanted, Search search) {
+    String query = normalize(searchFor);
+    if (query.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    GeoHash cell = GeoHash.withCharacterPrecision(latitude, longitude, CELL_GEOHASH_PRECISION);
+    int minuteOfDay = OpeningHours.toMinuteOfDay(currentTime);
+    String key = cell.toBase32() + '|' + servingRadiusInKms + '|'
+        + minuteOfDay / timeBucketInMinutes + '|' + query;
+    if (emptyResults.getIfPresent(key) != null) {
+      return new ArrayList<>();
+    }
+
+    SearchResults searchResults;
+    try {
+      searchResults = results.get(key,
+          () -> searchAroundCell(cell, query, servingRadiusInKms, wanted, search));
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new UncheckedExecutionException(e.getCause());
+    }
+    if (searchResults.matches.isEmpty()) {
+      results.invalidate(key);
+      emptyResults.put(key, Boolean.TRUE);
+      return new ArrayList<>();
+    }
+
+    List<Restaurant> restaurants =
+        openWithinRadius(searchResults, latitude, longitude, minuteOfDay, servingRadiusInKms);
+    while (!searchResults.isComplete() && (wanted == null || restaurants.size() < wanted)) {
+      // Too few of the cached matches are near enough, search again for twice as many.
+      Integer limit = wanted == null ? null
+          : (int) Math.min(Math.max(wanted, 2L * searchResults.limit), Integer.MAX_VALUE);
+      searchResults = searchAroundCell(cell, query, servingRadiusInKms, limit, search);
+      results.put(key, searchResults);
+      restaurants =
+          openWithinRadius(searchResults, latitude, longitude, minuteOfDay, servingRadiusInKms);
+    }
+    return restaurants;
+  }
+
+  private static List<Restaurant> openWithinRadius(SearchResults searchResults, double latitude,
+      double longitude, int minuteOfDay, double servingRadiusInKms) {
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (CachedRestaurant match : searchResults.matches) {
+      Restaurant restaurant = match.getRestaurant();
+      if (match.isOpenAt(minuteOfDay)
+          && GeoUtils.findDistanceInKm(latitude, longitude, restaurant.getLatitude(),
+          restaurant.getLongitude()) < servingRadiusInKms) {
+        restaurants.add(restaurant);
+      }
+    }
+    return restaurants;
+  }
+
+  private static SearchResults searchAroundCell(GeoHash cell, String query,
+      double servingRadiusInKms, Integer limit, Search search) {
+    BoundingBox box = cell.getBoundingBox();
+    WGS84Point center = box.getCenter();
+    double halfDiagonalInKms = GeoUtils.findDistanceInKm(center.getLatitude(),
+        center.getLongitude(), box.getNorthLatitude(), box.getEastLongitude());
+
+    List<CachedRestaurant> matches = new ArrayList<>();
+    for (Restaurant restaurant : search.find(center.getLatitude(), center.getLongitude(), query,
+        servingRadiusInKms + halfDiagonalInKms, limit)) {
+      matches.add(CachedRestaurant.of(restaurant));
+    }
+    return new SearchResults(Collections.unmodifiableList(matches), limit);
+  }
+
+  // The first matches of a search, all of them unless the search stopped at limit.
+  private static final class SearchResults {
+
+    private final List<CachedRestaurant> matches;
+    private final Integer limit;
+
+    SearchResults(List<CachedRestaurant> matches, Integer limit) {
+      this.matches = matches;
+      this.limit = limit;
+    }
+
+    boolean isComplete() {
+      return limit == null || matches.size() < limit;
+    }
+  }
+}
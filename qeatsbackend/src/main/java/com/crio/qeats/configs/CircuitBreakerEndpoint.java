@@ -0,0 +1,37 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.configs;
+
+import com.crio.qeats.utils.CircuitBreaker;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint reporting the state of the circuit breakers, at
+ * /actuator/circuitbreakers once exposed.
+ */
+@Component
+@Endpoint(id = "circuitbreakers")
+public class CircuitBreakerEndpoint {
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @ReadOperation
+  public Map<String, Object> circuitBreakers() {
+    Map<String, Object> circuitBreakers = new LinkedHashMap<>();
+    CircuitBreaker redisCircuitBreaker = redisConfiguration.getCircuitBreaker();
+    if (redisCircuitBreaker != null) {
+      circuitBreakers.put("redis", redisCircuitBreaker.getStatus());
+    }
+    return circuitBreakers;
+  }
+}
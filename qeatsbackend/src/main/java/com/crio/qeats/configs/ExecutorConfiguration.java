@@ -0,0 +1,129 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.configs;
+
+import com.crio.qeats.utils.VirtualThreads;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import lombok.extern.log4j.Log4j2;
+import org.apache.catalina.Lifecycle;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * Threads for blocking work. With qeats.threads.mode=platform (default) searches use a bounded
+ * pool and Tomcat its own worker pool. With qeats.threads.mode=virtual, on Java 21 or newer,
+ * every search lookup and every request runs on a virtual thread of its own. Jedis 2.x and the
+ * Mongo 3.x driver do their socket I/O inside synchronized blocks, which pins the carrier
+ * thread while a call waits, so virtual mode keeps the same concurrency bounds as the platform
+ * pools: waiting for a permit is cheap, running past the bound is not. On older runtimes the
+ * virtual mode falls back to the platform pools.
+ */
+@Configuration
+@Log4j2
+public class ExecutorConfiguration {
+
+  public static final String SEARCH_EXECUTOR = "searchExecutor";
+  public static final String CELL_REFRESH_EXECUTOR = "cellRefreshExecutor";
+
+  public static final String PLATFORM_THREADS = "platform";
+  public static final String VIRTUAL_THREADS = "virtual";
+
+  /**
+   * Runs the lookups of a search concurrently. The platform pool is bounded in threads and
+   * queue, lookups it cannot queue run on the request thread instead of piling up behind other
+   * searches. In virtual mode each lookup starts a virtual thread and nothing is rejected, but
+   * at most max-pool-size of them run at a time.
+   */
+  @Bean(name = SEARCH_EXECUTOR)
+  public Executor searchExecutor(
+      @Value("${qeats.threads.mode:" + PLATFORM_THREADS + "}") String threadsMode,
+      @Value("${qeats.search.executor.core-pool-size:8}") int corePoolSize,
+      @Value("${qeats.search.executor.max-pool-size:16}") int maxPoolSize,
+      @Value("${qeats.search.executor.queue-capacity:64}") int queueCapacity) {
+    if (useVirtualThreads(threadsMode)) {
+      log.info("Search lookups run on virtual threads");
+      return VirtualThreads.newThreadPerTaskExecutor("search-", maxPoolSize);
+    }
+
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(corePoolSize);
+    executor.setMaxPoolSize(maxPoolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("search-");
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.setWaitForTasksToCompleteOnShutdown(false);
+    return executor;
+  }
+
+  /**
+   * Recomputes cache cells in the background ahead of their expiry. Refreshes are best effort,
+   * ones the pool cannot queue are dropped and the cell is refreshed by a later lookup.
+   */
+  @Bean(name = CELL_REFRESH_EXECUTOR)
+  public ThreadPoolTaskExecutor cellRefreshExecutor(
+      @Value("${qeats.cache.refresh.executor.core-pool-size:1}") int corePoolSize,
+      @Value("${qeats.cache.refresh.executor.max-pool-size:2}") int maxPoolSize,
+      @Value("${qeats.cache.refresh.executor.queue-capacity:64}") int queueCapacity) {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(corePoolSize);
+    executor.setMaxPoolSize(maxPoolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setDaemon(true);
+    executor.setThreadNamePrefix("cell-refresh-");
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.setWaitForTasksToCompleteOnShutdown(false);
+    return executor;
+  }
+
+  /**
+   * Hands every request Tomcat accepts to a virtual thread of its own instead of the
+   * worker pool, at most server.tomcat.max-threads of them running at a time. The executor is
+   * shut down when its connector stops.
+   */
+  @Bean
+  @ConditionalOnClass(TomcatServletWebServerFactory.class)
+  @ConditionalOnProperty(name = "qeats.threads.mode", havingValue = VIRTUAL_THREADS)
+  public WebServerFactoryCustomizer<TomcatServletWebServerFactory> virtualThreadsTomcat(
+      @Value("${server.tomcat.max-threads:200}") int maxThreads) {
+    return factory -> {
+      if (!useVirtualThreads(VIRTUAL_THREADS)) {
+        return;
+      }
+      log.info("Requests are handled on virtual threads");
+      factory.addConnectorCustomizers(connector -> {
+        ExecutorService requestExecutor =
+            VirtualThreads.newThreadPerTaskExecutor("http-", maxThreads);
+        connector.getProtocolHandler().setExecutor(requestExecutor);
+        connector.addLifecycleListener(event -> {
+          if (Lifecycle.AFTER_STOP_EVENT.equals(event.getType())) {
+            requestExecutor.shutdown();
+          }
+        });
+      });
+    };
+  }
+
+  private static boolean useVirtualThreads(String threadsMode) {
+    if (!VIRTUAL_THREADS.equals(threadsMode)) {
+      return false;
+    }
+    if (!VirtualThreads.isAvailable()) {
+      log.warn("Virtual threads need Java 21 or newer, running on {}, using platform threads",
+          System.getProperty("java.version"));
+      return false;
+    }
+    return true;
+  }
+}
@@ -1,20 +1,41 @@
 
 package com.crio.qeats.configs;
 
+import com.crio.qeats.cache.BinaryCacheCodec;
+import com.crio.qeats.cache.CacheCodec;
+import com.crio.qeats.cache.CachedRestaurant;
+import com.crio.qeats.cache.JsonCacheCodec;
+import com.crio.qeats.utils.CircuitBreaker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.serializer.GenericToStringSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.exceptions.JedisException;
 
 
 @Component
+@Log4j2
 public class RedisConfiguration {
 
   // TODO: CRIO_TASK_MODULE_REDIS
@@ -36,9 +57,116 @@ public class RedisConfiguration {
   private int redisPort;
   private JedisPool jedisPool;
 
+  // In-process tier in front of Redis, keyed like Redis and holding deserialized cells.
+  // Kept well below the Redis expiry so instances pick up a refreshed cell soon after.
+  @Value("${qeats.cache.local.maximum-size:10000}")
+  private long localCacheMaximumSize = 10000;
+  @Value("${qeats.cache.local.expiry-in-seconds:60}")
+  private long localCacheExpiryInSeconds = 60;
+  private Cache<String, List<CachedRestaurant>> localCache;
+
+  // Format of cells in Redis, binary or json.
+  @Value("${qeats.cache.codec:binary}")
+  private String cacheCodecName = "binary";
+  private CacheCodec cacheCodec;
+
+  @Value("${qeats.redis.pool.max-total:16}")
+  private int poolMaxTotal = 16;
+  @Value("${qeats.redis.pool.max-idle:8}")
+  private int poolMaxIdle = 8;
+  @Value("${qeats.redis.pool.min-idle:2}")
+  private int poolMinIdle = 2;
+  // Borrowers wait at most this long for a free connection instead of hanging.
+  @Value("${qeats.redis.pool.max-wait-ms:200}")
+  private long poolMaxWaitMillis = 200;
+  @Value("${qeats.redis.timeout-ms:100}")
+  private int redisTimeoutMillis = 100;
+  // Connections held longer than this are logged, 0 disables leak detection.
+  @Value("${qeats.redis.pool.leak-detection-threshold-ms:10000}")
+  private long leakDetectionThresholdMillis = 10000;
+  // Share of borrows that record the borrowing stack for the leak report. Capturing a stack
+  // costs microseconds on every borrow, so it is off unless a leak is being tracked down.
+  @Value("${qeats.redis.pool.leak-detection-stack-sample-rate:0}")
+  private double leakDetectionStackSampleRate = 0;
+
+  private final Set<RedisConnection> borrowedConnections = ConcurrentHashMap.newKeySet();
+  // Result of the last PING, see checkHealth.
+  private volatile boolean healthy;
+  // Connection of its own for the health check, so that a busy pool does not read as Redis
+  // being down.
+  private Jedis healthCheckConnection;
+
+  // Cache calls are cut off once Redis errors or slows down, see CircuitBreaker.
+  @Value("${qeats.redis.circuit-breaker.window-size:50}")
+  private int breakerWindowSize = 50;
+  @Value("${qeats.redis.circuit-breaker.minimum-calls:20}")
+  private int breakerMinimumCalls = 20;
+  @Value("${qeats.redis.circuit-breaker.failure-rate-threshold:0.5}")
+  private double breakerFailureRateThreshold = 0.5;
+  @Value("${qeats.redis.circuit-breaker.slow-call-threshold-ms:50}")
+  private long breakerSlowCallThresholdMillis = 50;
+  @Value("${qeats.redis.circuit-breaker.slow-call-rate-threshold:0.5}")
+  private double breakerSlowCallRateThreshold = 0.5;
+  @Value("${qeats.redis.circuit-breaker.open-duration-ms:10000}")
+  private long breakerOpenDurationMillis = 10000;
+  @Value("${qeats.redis.circuit-breaker.half-open-calls:5}")
+  private int breakerHalfOpenCalls = 5;
+  private CircuitBreaker circuitBreaker;
+
+  @Autowired(required = false)
+  private MeterRegistry meterRegistry;
+  private boolean metricsRegistered;
+
   public void buildpoolconfig() {
+    JedisPoolConfig poolConfig = new JedisPoolConfig();
+    poolConfig.setMaxTotal(poolMaxTotal);
+    poolConfig.setMaxIdle(poolMaxIdle);
+    poolConfig.setMinIdle(poolMinIdle);
+    poolConfig.setMaxWaitMillis(poolMaxWaitMillis);
+    poolConfig.setBlockWhenExhausted(true);
+
     System.out.println("Jedis Pool is initialised");
-    jedisPool = new JedisPool(redisHost, redisPort);
+    jedisPool = new JedisPool(poolConfig, redisHost, redisPort, redisTimeoutMillis);
+  }
+
+  private void buildCircuitBreaker() {
+    circuitBreaker = new CircuitBreaker("redis", breakerWindowSize, breakerMinimumCalls,
+        breakerFailureRateThreshold, breakerSlowCallThresholdMillis,
+        breakerSlowCallRateThreshold, breakerOpenDurationMillis, breakerHalfOpenCalls);
+  }
+
+  private void registerMetrics() {
+    if (meterRegistry == null || metricsRegistered) {
+      return;
+    }
+    registerPoolGauge("active", JedisPool::getNumActive);
+    registerPoolGauge("idle", JedisPool::getNumIdle);
+    registerPoolGauge("waiting", JedisPool::getNumWaiters);
+    Gauge.builder("qeats.redis.available", this, config -> config.isCacheAvailable() ? 1 : 0)
+        .register(meterRegistry);
+    Gauge.builder("qeats.redis.circuit-breaker.open", this,
+        config -> config.circuitBreaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1)
+        .register(meterRegistry);
+    metricsRegistered = true;
+  }
+
+  // Reads the current pool on every sample, so the gauges survive initCache rebuilding it.
+  private void registerPoolGauge(String state, ToIntFunction<JedisPool> stat) {
+    Gauge.builder("qeats.redis.pool.connections", this, config -> {
+      JedisPool pool = config.jedisPool;
+      return pool == null ? 0 : stat.applyAsInt(pool);
+    }).tag("state", state).register(meterRegistry);
+  }
+
+  private void buildLocalCache() {
+    localCache = CacheBuilder.newBuilder()
+        .maximumSize(localCacheMaximumSize)
+        .expireAfterWrite(localCacheExpiryInSeconds, TimeUnit.SECONDS)
+        .build();
+  }
+
+  private void buildCacheCodec() {
+    cacheCodec = "json".equals(cacheCodecName) ? new JsonCacheCodec() : new BinaryCacheCodec();
   }
 
   @Value("${spring.redis.port}")
@@ -54,7 +182,96 @@ public class RedisConfiguration {
   @PostConstruct
   public void initCache() {
 
+    if (jedisPool != null) {
+      jedisPool.destroy();
+    }
+    closeHealthCheckConnection();
     buildpoolconfig();
+    buildLocalCache();
+    buildCacheCodec();
+    buildCircuitBreaker();
+    registerMetrics();
+    checkHealth();
+  }
+
+  /**
+   * Borrows a connection from the pool, close it to give it back.
+   * @throws redis.clients.jedis.exceptions.JedisConnectionException if no connection becomes
+   *     free within the configured wait time
+   */
+  public RedisConnection getConnection() {
+    Jedis jedis = jedisPool.getResource();
+    boolean captureStack = leakDetectionThresholdMillis > 0 && leakDetectionStackSampleRate > 0
+        && ThreadLocalRandom.current().nextDouble() < leakDetectionStackSampleRate;
+    RedisConnection connection = new RedisConnection(jedis,
+        captureStack ? new Throwable("Redis connection borrowed here") : null,
+        borrowedConnections);
+    borrowedConnections.add(connection);
+    return connection;
+  }
+
+  /**
+   * Pings Redis so that isCacheAvailable reflects whether Redis actually answers, and reports
+   * connections that have been held for too long.
+   * The ping goes over a connection outside the pool, all pooled connections being in use says
+   * nothing about whether Redis answers.
+   */
+  @Scheduled(fixedDelayString = "${qeats.redis.health-check-interval-ms:5000}")
+  public synchronized void checkHealth() {
+    boolean wasHealthy = healthy;
+    if (jedisPool == null) {
+      healthy = false;
+    } else {
+      try {
+        if (healthCheckConnection == null) {
+          healthCheckConnection = new Jedis(redisHost, redisPort, redisTimeoutMillis);
+        }
+        healthy = "PONG".equals(healthCheckConnection.ping());
+      } catch (JedisException e) {
+        healthy = false;
+        closeHealthCheckConnection();
+      }
+    }
+    if (healthy && !wasHealthy) {
+      log.info("Redis is available");
+    } else if (!healthy && wasHealthy) {
+      log.warn("Redis is unavailable, serving from the database");
+    }
+
+    reportLeakedConnections();
+  }
+
+  // A broken connection is dropped and the next check connects again.
+  private synchronized void closeHealthCheckConnection() {
+    if (healthCheckConnection != null) {
+      try {
+        healthCheckConnection.close();
+      } catch (JedisException e) {
+        // Already broken, nothing left to release.
+      }
+      healthCheckConnection = null;
+    }
+  }
+
+  private void reportLeakedConnections() {
+    if (leakDetectionThresholdMillis <= 0) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    for (RedisConnection connection : borrowedConnections) {
+      long heldForMillis = now - connection.getBorrowedAt();
+      if (heldForMillis > leakDetectionThresholdMillis && !connection.isReportedAsLeak()) {
+        connection.setReportedAsLeak();
+        if (connection.getBorrowedBy() != null) {
+          log.warn("Redis connection held for {} ms, it may never be closed", heldForMillis,
+              connection.getBorrowedBy());
+        } else {
+          log.warn("Redis connection held for {} ms, it may never be closed; set "
+              + "qeats.redis.pool.leak-detection-stack-sample-rate to log where connections "
+              + "are borrowed", heldForMillis);
+        }
+      }
+    }
   }
 
 
@@ -65,7 +282,7 @@ public class RedisConfiguration {
    */
   public boolean isCacheAvailable() {
 
-    return jedisPool != null;
+    return jedisPool != null && healthy;
   }
 
   /**
@@ -74,17 +291,63 @@ public class RedisConfiguration {
    */
   public void destroyCache() {
     
+    if (localCache != null) {
+      localCache.invalidateAll();
+    }
     if (jedisPool != null) {
-      jedisPool.getResource().flushAll();
+      try (Jedis jedis = jedisPool.getResource()) {
+        jedis.flushAll();
+      } catch (JedisException e) {
+        e.printStackTrace();
+      }
       jedisPool.destroy();
       jedisPool = null;
     }
+    closeHealthCheckConnection();
+    healthy = false;
+
+  }
 
+  /**
+   * Closes the pool on shutdown, leaving the cached data in place.
+   */
+  @PreDestroy
+  public void closePool() {
+    if (jedisPool != null) {
+      jedisPool.destroy();
+      jedisPool = null;
+    }
+    closeHealthCheckConnection();
+    healthy = false;
   }
 
+  /**
+   * Prefer {@link #getConnection()}, which tracks the connection until it is closed.
+   */
   public JedisPool getJedisPool() { 
     return jedisPool;
   }
 
+  /**
+   * In-process cache of restaurant cells, checked before Redis.
+   * Cached lists are unmodifiable and shared between requests, so their restaurants must not
+   * be modified either.
+   */
+  public Cache<String, List<CachedRestaurant>> getLocalCache() {
+    return localCache;
+  }
+
+  public CacheCodec getCacheCodec() {
+    return cacheCodec;
+  }
+
+  /**
+   * Breaker that calls to Redis should go through, callers fall back to the database while it
+   * does not permit calls.
+   */
+  public CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
 }
 
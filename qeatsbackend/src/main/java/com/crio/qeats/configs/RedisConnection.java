@@ -0,0 +1,60 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.configs;
+
+import java.util.Set;
+import redis.clients.jedis.Jedis;
+
+/**
+ * A Jedis connection borrowed through {@link RedisConfiguration#getConnection()}.
+ * Use it in try-with-resources, closing it hands the connection back to the pool. Until then
+ * it is tracked, so connections that are never closed show up in the logs with the stack
+ * trace of the code that borrowed them.
+ */
+public class RedisConnection implements AutoCloseable {
+
+  private final Jedis jedis;
+  private final long borrowedAt;
+  private final Throwable borrowedBy;
+  private final Set<RedisConnection> borrowedConnections;
+  private volatile boolean reportedAsLeak;
+
+  RedisConnection(Jedis jedis, Throwable borrowedBy, Set<RedisConnection> borrowedConnections) {
+    this.jedis = jedis;
+    this.borrowedAt = System.currentTimeMillis();
+    this.borrowedBy = borrowedBy;
+    this.borrowedConnections = borrowedConnections;
+  }
+
+  public Jedis getJedis() {
+    return jedis;
+  }
+
+  long getBorrowedAt() {
+    return borrowedAt;
+  }
+
+  // Null when leak detection is disabled.
+  Throwable getBorrowedBy() {
+    return borrowedBy;
+  }
+
+  boolean isReportedAsLeak() {
+    return reportedAsLeak;
+  }
+
+  void setReportedAsLeak() {
+    reportedAsLeak = true;
+  }
+
+  @Override
+  public void close() {
+    if (borrowedConnections.remove(this)) {
+      jedis.close();
+    }
+  }
+}
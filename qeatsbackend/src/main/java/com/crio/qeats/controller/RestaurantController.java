@@ -9,7 +9,13 @@ package com.crio.qeats.controller;
 import com.crio.qeats.dto.Restaurant;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetRestaurantsResponseWriter;
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
 import com.crio.qeats.services.RestaurantService;
+import com.crio.qeats.utils.RestaurantCursor;
+import com.crio.qeats.utils.SearchCursor;
+import java.io.IOException;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -23,6 +29,7 @@ import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -42,6 +49,7 @@ public class RestaurantController {
 
   public static final String RESTAURANT_API_ENDPOINT = "/qeats/v1";
   public static final String RESTAURANTS_API = "/restaurants";
+  public static final String SUGGEST_API = "/suggest";
   public static final String MENU_API = "/menu";
   public static final String CART_API = "/cart";
   public static final String CART_ITEM_API = "/cart/item";
@@ -54,6 +62,9 @@ public class RestaurantController {
   @Autowired
   private RestaurantService restaurantService;
 
+  private final GetRestaurantsResponseWriter getRestaurantsResponseWriter =
+      new GetRestaurantsResponseWriter();
+
 
   // TODO: CRIO_TASK_MODULE_MULTITHREADING
   //  Improve the performance of this GetRestaurants API
@@ -123,16 +134,17 @@ public class RestaurantController {
   // curl -X GET "http://localhost:8081/qeats/v1/restaurants?latitude=28.4900591&longitude=77.536386&searchFor=tamil"
 
   @GetMapping(RESTAURANTS_API)
-  public ResponseEntity<GetRestaurantsResponse> getRestaurants(
-      GetRestaurantsRequest getRestaurantsRequest) {
+  public ResponseEntity<byte[]> getRestaurants(
+      GetRestaurantsRequest getRestaurantsRequest) throws IOException {
+
+    log.debug("getRestaurants called with {}", getRestaurantsRequest);
 
-    log.info(getRestaurantsRequest.getLatitude());
-     
     //CHECKSTYLE:OFF
     if (getRestaurantsRequest.getLatitude() != null && getRestaurantsRequest.getLongitude() != null
         && getRestaurantsRequest.getLatitude() >= -90 && getRestaurantsRequest.getLatitude() <= 90
         && getRestaurantsRequest.getLongitude() >= -180 
-        && getRestaurantsRequest.getLongitude() <= 180) {
+        && getRestaurantsRequest.getLongitude() <= 180
+        && isValidPage(getRestaurantsRequest)) {
 
       GetRestaurantsResponse  getRestaurantsResponse = null;
 
@@ -143,31 +155,81 @@ public class RestaurantController {
         getRestaurantsResponse = restaurantService
           .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.now());
       }
-     
-
-       
-      System.out.println("GetRestaurantsResponse : " + getRestaurantsResponse);
 
       if (getRestaurantsResponse == null) {
         return ResponseEntity.ok().body(null);
       }
-      List<Restaurant> res = getRestaurantsResponse.getRestaurants();
-      
-      for (Restaurant r:res) {
-        r.setName(r.getName().replaceAll("[^a-zA-Z0-9 ]", ""));
-      }  
-
-      getRestaurantsResponse = new GetRestaurantsResponse(res);
-      log.info("getRestaurants returned {}", getRestaurantsResponse);
-    
-      
-      
-      return ResponseEntity.ok().body(getRestaurantsResponse);
+      log.debug("getRestaurants returned {} restaurants",
+          getRestaurantsResponse.getRestaurants() == null ? 0
+              : getRestaurantsResponse.getRestaurants().size());
+
+      return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8)
+          .body(getRestaurantsResponseWriter.write(getRestaurantsResponse));
     } else {
       return ResponseEntity.badRequest().body(null);
     }
   }
 
+  // A cursor only makes sense together with the page size it was produced for.
+  private static boolean isValidPage(GetRestaurantsRequest getRestaurantsRequest) {
+    Integer limit = getRestaurantsRequest.getLimit();
+    String cursor = getRestaurantsRequest.getCursor();
+    if (limit == null) {
+      return cursor == null;
+    }
+    if (limit < 1 || limit > GetRestaurantsRequest.MAX_LIMIT) {
+      return false;
+    }
+    if (cursor == null) {
+      return true;
+    }
+    // Searches are ranked by match rather than distance and have cursors of their own.
+    return getRestaurantsRequest.getSearchFor() == null
+        ? RestaurantCursor.decode(cursor) != null : SearchCursor.decode(cursor) != null;
+  }
+
+  // Get typeahead completions for what the user has typed so far, in place of a full search
+  // per keystroke. Completions come from restaurant names, cuisines and item names near the
+  // caller, those leading to the most nearby restaurants first.
+  // API URI: /qeats/v1/suggest?latitude=28.4900591&longitude=77.536386&prefix=bir&limit=5
+  // Method: GET
+  // Query Params: latitude, longitude, prefix, limit(optional, 1 to 20, default 10)
+  //
+  // HTTP Code: 200
+  // {
+  //  "suggestions": [
+  //    {
+  //      "text": "Biryani",
+  //      "type": "CUISINE"
+  //    },
+  //    {
+  //      "text": "Chicken Biryani",
+  //      "type": "ITEM"
+  //    }
+  //  ]
+  // }
+  //
+  // Error Response:
+  // HTTP Code: 400, if a parameter is missing or out of range.
+  // Eg:
+  // curl -X GET "http://localhost:8081/qeats/v1/suggest?latitude=28.4900591&longitude=77.536386&prefix=bir"
+
+  @GetMapping(SUGGEST_API)
+  public ResponseEntity<GetSuggestionsResponse> getSuggestions(
+      GetSuggestionsRequest getSuggestionsRequest) {
+    Double latitude = getSuggestionsRequest.getLatitude();
+    Double longitude = getSuggestionsRequest.getLongitude();
+    Integer limit = getSuggestionsRequest.getLimit();
+    if (latitude == null || longitude == null || latitude < -90 || latitude > 90
+        || longitude < -180 || longitude > 180 || getSuggestionsRequest.getPrefix() == null
+        || limit != null && (limit < 1 || limit > GetSuggestionsRequest.MAX_LIMIT)) {
+      return ResponseEntity.badRequest().body(null);
+    }
+
+    return ResponseEntity.ok().body(
+        restaurantService.findSuggestions(getSuggestionsRequest, LocalTime.now()));
+  }
+
   // TIP(MODULE_MENUAPI): Model Implementation for getting menu given a restaurantId.
   // Get the Menu for the given restaurantId
   // API URI: /qeats/v1/menu?restaurantId=11
@@ -0,0 +1,86 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Restaurant that cannot be modified, for restaurants shared between requests such as the
+ * ones held by the in-process caches. Whatever is derived from a snapshot, like its JSON, stays
+ * valid for as long as the instance lives.
+ */
+public final class RestaurantSnapshot extends Restaurant {
+
+  private RestaurantSnapshot(Restaurant restaurant) {
+    super(restaurant.getRestaurantId(), restaurant.getName(), restaurant.getCity(),
+        restaurant.getImageUrl(), restaurant.getLatitude(), restaurant.getLongitude(),
+        restaurant.getOpensAt(), restaurant.getClosesAt(),
+        restaurant.getAttributes() == null ? null
+            : Collections.unmodifiableList(new ArrayList<>(restaurant.getAttributes())));
+  }
+
+  /**
+   * Copies a restaurant, snapshots are returned as they are.
+   */
+  public static RestaurantSnapshot of(Restaurant restaurant) {
+    if (restaurant instanceof RestaurantSnapshot) {
+      return (RestaurantSnapshot) restaurant;
+    }
+    return new RestaurantSnapshot(restaurant);
+  }
+
+  @Override
+  public void setRestaurantId(String restaurantId) {
+    throw unmodifiable();
+  }
+
+  @Override
+  public void setName(String name) {
+    throw unmodifiable();
+  }
+
+  @Override
+  public void setCity(String city) {
+    throw unmodifiable();
+  }
+
+  @Override
+  public void setImageUrl(String imageUrl) {
+    throw unmodifiable();
+  }
+
+  @Override
+  public void setLatitude(Double latitude) {
+    throw unmodifiable();
+  }
+
+  @Override
+  public void setLongitude(Double longitude) {
+    throw unmodifiable();
+  }
+
+  @Override
+  public void setOpensAt(String opensAt) {
+    throw unmodifiable();
+  }
+
+  @Override
+  public void setClosesAt(String closesAt) {
+    throw unmodifiable();
+  }
+
+  @Override
+  public void setAttributes(List<String> attributes) {
+    throw unmodifiable();
+  }
+
+  private static UnsupportedOperationException unmodifiable() {
+    return new UnsupportedOperationException("Restaurant snapshots cannot be modified");
+  }
+}
@@ -0,0 +1,31 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A restaurant found by a search, tagged with how it matched.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchMatch {
+
+  /**
+   * The search sources, in the order the search contract ranks them.
+   */
+  public enum Category {
+    NAME, ATTRIBUTES, ITEM_NAME, ITEM_ATTRIBUTES
+  }
+
+  private Restaurant restaurant;
+
+  private Category category;
+}
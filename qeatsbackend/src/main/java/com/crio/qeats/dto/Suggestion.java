@@ -0,0 +1,28 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A completion offered while the user types a search, with what kind of text it is.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Suggestion {
+
+  public enum Type {
+    RESTAURANT, CUISINE, ITEM
+  }
+
+  private String text;
+
+  private Type type;
+}
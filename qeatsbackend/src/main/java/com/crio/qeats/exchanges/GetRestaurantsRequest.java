@@ -33,6 +33,8 @@ import java.util.List;
 @AllArgsConstructor
 public class GetRestaurantsRequest {
 
+  public static final int MAX_LIMIT = 100;
+
   @NotNull
   @Min(-90)
   @Max(90)
@@ -44,6 +46,14 @@ public class GetRestaurantsRequest {
 
   private String searchFor;
 
+  // Optional page size for the nearby listing, results then come nearest first.
+  @Min(1)
+  @Max(MAX_LIMIT)
+  private Integer limit;
+
+  // Opaque nextCursor of the previous page.
+  private String cursor;
+
   public GetRestaurantsRequest(Double lat, Double lon) {
     this.latitude = lat;
     this.longitude = lon;
@@ -7,6 +7,7 @@
 package com.crio.qeats.exchanges;
 
 import com.crio.qeats.dto.Restaurant;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -54,6 +55,14 @@ import lombok.ToString;
 public class GetRestaurantsResponse {
 
   List<Restaurant> restaurants;
+
+  // Set only for a paged request that has more results.
+  @JsonInclude(JsonInclude.Include.NON_NULL)
+  String nextCursor;
+
+  public GetRestaurantsResponse(List<Restaurant> restaurants) {
+    this.restaurants = restaurants;
+  }
 }
 
 // }
@@ -0,0 +1,108 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.RestaurantSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Writes {@link GetRestaurantsResponse} JSON out of pre-serialized restaurant fragments.
+ * Each restaurant snapshot is serialized once, with its name already cleaned up, and the
+ * fragment is reused for as long as the same instance keeps being returned, which is the case
+ * for restaurants served from the in-process cache. A response then only copies bytes.
+ * Only {@link RestaurantSnapshot}s are cached, since they cannot change after serialization;
+ * other restaurants are serialized on every response. Fragments are keyed by identity and
+ * weakly, so they go away with the cached restaurants.
+ *
+ * <p>Whole response bodies are not cached. Cache entries hold the restaurants of a cell or a
+ * search area, and each response keeps those within its own radius that are open at its own
+ * time, one page at a time, so two requests rarely share a body. Fragments are the largest
+ * part they share. For the same reason gzip is applied per response by the server, when
+ * server.compression is enabled, rather than stored pre-compressed.</p>
+ */
+public class GetRestaurantsResponseWriter {
+
+  private static final Pattern NON_PRINTABLE_NAME_CHARACTERS = Pattern.compile("[^a-zA-Z0-9 ]");
+  private static final byte[] RESTAURANTS_START =
+      "{\"restaurants\":[".getBytes(StandardCharsets.UTF_8);
+  private static final byte[] NEXT_CURSOR = "],\"nextCursor\":".getBytes(StandardCharsets.UTF_8);
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  private final Cache<RestaurantSnapshot, byte[]> fragments = CacheBuilder.newBuilder()
+      .weakKeys()
+      .maximumSize(100000)
+      .build();
+
+  /**
+   * Serializes the response, with names stripped of everything but letters, digits and spaces.
+   */
+  public byte[] write(GetRestaurantsResponse getRestaurantsResponse) throws IOException {
+    List<Restaurant> restaurants = getRestaurantsResponse.getRestaurants();
+    if (restaurants == null) {
+      return objectMapper.writeValueAsBytes(getRestaurantsResponse);
+    }
+
+    byte[][] restaurantFragments = new byte[restaurants.size()][];
+    int length = RESTAURANTS_START.length + NEXT_CURSOR.length + restaurants.size() + 64;
+    for (int i = 0; i < restaurantFragments.length; i++) {
+      restaurantFragments[i] = fragmentOf(restaurants.get(i));
+      length += restaurantFragments[i].length;
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream(length);
+    out.write(RESTAURANTS_START);
+    for (int i = 0; i < restaurantFragments.length; i++) {
+      if (i > 0) {
+        out.write(',');
+      }
+      out.write(restaurantFragments[i]);
+    }
+    if (getRestaurantsResponse.getNextCursor() == null) {
+      out.write(']');
+    } else {
+      out.write(NEXT_CURSOR);
+      out.write(objectMapper.writeValueAsBytes(getRestaurantsResponse.getNextCursor()));
+    }
+    out.write('}');
+    return out.toByteArray();
+  }
+
+  private byte[] fragmentOf(Restaurant restaurant) throws IOException {
+    if (!(restaurant instanceof RestaurantSnapshot)) {
+      return objectMapper.writeValueAsBytes(withPrintableName(restaurant));
+    }
+    RestaurantSnapshot snapshot = (RestaurantSnapshot) restaurant;
+    byte[] fragment = fragments.getIfPresent(snapshot);
+    if (fragment == null) {
+      fragment = objectMapper.writeValueAsBytes(withPrintableName(snapshot));
+      fragments.put(snapshot, fragment);
+    }
+    return fragment;
+  }
+
+  private static Restaurant withPrintableName(Restaurant restaurant) {
+    if (restaurant.getName() == null) {
+      return restaurant;
+    }
+    String name = NON_PRINTABLE_NAME_CHARACTERS.matcher(restaurant.getName()).replaceAll("");
+    if (name.equals(restaurant.getName())) {
+      return restaurant;
+    }
+    return new Restaurant(restaurant.getRestaurantId(), name, restaurant.getCity(),
+        restaurant.getImageUrl(), restaurant.getLatitude(), restaurant.getLongitude(),
+        restaurant.getOpensAt(), restaurant.getClosesAt(), restaurant.getAttributes());
+  }
+}
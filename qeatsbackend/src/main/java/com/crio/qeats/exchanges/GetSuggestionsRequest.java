@@ -0,0 +1,48 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Query params of /qeats/v1/suggest?latitude=28.49&longitude=77.53&prefix=bir&limit=5
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GetSuggestionsRequest {
+
+  public static final int DEFAULT_LIMIT = 10;
+  public static final int MAX_LIMIT = 20;
+
+  @NotNull
+  @Min(-90)
+  @Max(90)
+  private Double latitude;
+  @NotNull
+  @Min(-180)
+  @Max(180)
+  private Double longitude;
+
+  // What the user has typed so far.
+  @NotNull
+  private String prefix;
+
+  // Optional number of completions, DEFAULT_LIMIT when absent.
+  @Min(1)
+  @Max(MAX_LIMIT)
+  private Integer limit;
+
+  public GetSuggestionsRequest(Double latitude, Double longitude, String prefix) {
+    this.latitude = latitude;
+    this.longitude = longitude;
+    this.prefix = prefix;
+  }
+}
@@ -0,0 +1,27 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import com.crio.qeats.dto.Suggestion;
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// {
+//  "suggestions": [
+//    {"text": "Biryani Nights", "type": "RESTAURANT"},
+//    {"text": "Chicken Biryani", "type": "ITEM"}
+//  ]
+// }
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GetSuggestionsResponse {
+
+  private List<Suggestion> suggestions;
+}
@@ -6,6 +6,36 @@ public class GlobalConstants {
   // Amount of time after which the redis entries should expire.
   public static final int REDIS_ENTRY_EXPIRY_IN_SECONDS = 3600;
 
+  // How long an expired cell is still served while it is being refreshed in the background.
+  public static final int REDIS_ENTRY_STALE_IN_SECONDS = 600;
+
+  // Nearby restaurants are cached per geohash cell of this precision (~4.9km x 4.9km), sized so
+  // that a 3 - 5 km serving radius overlaps only the caller's cell and its neighbours.
+  public static final int REDIS_CELL_GEOHASH_PRECISION = 5;
+  public static final String REDIS_CELL_KEY_PREFIX = "restaurants:cell:";
+
+  // Only one instance loads a missing cell from the database while it holds the cell lock,
+  // the others poll for the stored cell until the lock would have expired.
+  public static final String REDIS_CELL_LOCK_KEY_PREFIX = "lock:restaurants:cell:";
+  public static final long REDIS_CELL_LOCK_EXPIRY_IN_MILLIS = 5000;
+  public static final long REDIS_CELL_LOCK_POLL_INTERVAL_IN_MILLIS = 25;
+
+  // Geo set of restaurant locations and per-restaurant hashes of the redis-geo implementation.
+  public static final String REDIS_GEO_KEY = "restaurants:geo";
+  public static final String REDIS_RESTAURANT_KEY_PREFIX = "restaurants:data:";
+  // Random id of the current contents of the geo set, replaced only when the set is rebuilt
+  // after Redis lost it, so every instance syncing the set can tell whether it is still the one
+  // it synced.
+  public static final String REDIS_GEO_GENERATION_KEY = "restaurants:geo:generation";
+
+  // The cache warm-up leaves cells alone that stay fresh in Redis for at least this long.
+  public static final int REDIS_WARM_UP_MIN_REMAINING_IN_SECONDS = 1800;
+
+  // Serving radius during the peak windows, which the cache warm-up loads cells for.
+  public static final double PEAK_HOURS_SERVING_RADIUS_IN_KMS = 3.0;
+  // Serving radius outside the peak windows.
+  public static final double NORMAL_HOURS_SERVING_RADIUS_IN_KMS = 5.0;
+
   // TIP(MODULE_RABBITMQ): RabbitMQ related configs.
   public static final String EXCHANGE_NAME = "rabbitmq-exchange";
   public static final String QUEUE_NAME = "rabbitmq-queue";
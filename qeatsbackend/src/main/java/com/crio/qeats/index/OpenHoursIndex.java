@@ -0,0 +1,66 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import com.crio.qeats.utils.OpeningHours;
+import java.util.BitSet;
+
+/**
+ * Opening hours of a fixed set of restaurants, addressed by ordinal.
+ * The restaurants open in a given minute are kept as a bitset that is rebuilt only when the
+ * minute changes, so checking a single restaurant is one bit lookup.
+ */
+public class OpenHoursIndex {
+
+  private final int[] opensAt;
+  private final int[] closesAt;
+
+  private volatile OpenNow openNow;
+
+  /**
+   * Both arrays are indexed by restaurant ordinal and hold minute-of-day values.
+   */
+  public OpenHoursIndex(int[] opensAt, int[] closesAt) {
+    this.opensAt = opensAt;
+    this.closesAt = closesAt;
+  }
+
+  public boolean isOpen(int ordinal, int minuteOfDay) {
+    return openAt(minuteOfDay).get(ordinal);
+  }
+
+  /**
+   * Get the restaurants open during the given minute of the day.
+   * @return bitset with the ordinals of the open restaurants set, must not be modified
+   */
+  public BitSet openAt(int minuteOfDay) {
+    OpenNow current = openNow;
+    if (current == null || current.minuteOfDay != minuteOfDay) {
+      BitSet open = new BitSet(opensAt.length);
+      for (int ordinal = 0; ordinal < opensAt.length; ordinal++) {
+        if (OpeningHours.isOpen(opensAt[ordinal], closesAt[ordinal], minuteOfDay)) {
+          open.set(ordinal);
+        }
+      }
+      // Concurrent rebuilds for the same minute produce equal bitsets, the last one wins.
+      current = new OpenNow(minuteOfDay, open);
+      openNow = current;
+    }
+    return current.open;
+  }
+
+  private static final class OpenNow {
+
+    private final int minuteOfDay;
+    private final BitSet open;
+
+    OpenNow(int minuteOfDay, BitSet open) {
+      this.minuteOfDay = minuteOfDay;
+      this.open = open;
+    }
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.utils.EntityMapper;
+import com.crio.qeats.utils.GeoUtils;
+import com.crio.qeats.utils.OpeningHours;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory spatial index of all restaurants, bucketed by geohash cell.
+ * The index is loaded from Mongo at startup and rebuilt periodically, a rebuild swaps in a
+ * new immutable snapshot so readers never block.
+ */
+@Component
+@ConditionalOnProperty(name = "qeats.restaurant-repository-service", havingValue = "geo-index")
+@Log4j2
+public class RestaurantGeoIndex {
+
+  // Precision 5 cells are ~4.9km x 4.9km, so a 3 - 5 km radius overlaps only a handful of them.
+  public static final int CELL_PRECISION = 5;
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  private volatile Snapshot snapshot = new Snapshot(new Restaurant[0], Collections.emptyMap(), 0,
+      new OpenHoursIndex(new int[0], new int[0]));
+
+  /**
+   * Reloads every restaurant from the database and replaces the current snapshot.
+   */
+  @PostConstruct
+  @Scheduled(fixedDelayString = "${qeats.geo-index.refresh-interval-ms:300000}",
+      initialDelayString = "${qeats.geo-index.refresh-interval-ms:300000}")
+  public void rebuild() {
+    List<RestaurantEntity> restaurantEntities = restaurantRepository.findAll();
+
+    Restaurant[] restaurants = new Restaurant[restaurantEntities.size()];
+    int[] opensAt = new int[restaurants.length];
+    int[] closesAt = new int[restaurants.length];
+    Map<String, List<Integer>> ordinalsByCell = new HashMap<>();
+
+    for (int ordinal = 0; ordinal < restaurants.length; ordinal++) {
+      RestaurantEntity restaurantEntity = restaurantEntities.get(ordinal);
+      restaurants[ordinal] = EntityMapper.toRestaurant(restaurantEntity);
+      opensAt[ordinal] = OpeningHours.toMinuteOfDay(restaurantEntity.getOpensAt());
+      closesAt[ordinal] = OpeningHours.toMinuteOfDay(restaurantEntity.getClosesAt());
+
+      String cell = GeoHash.geoHashStringWithCharacterPrecision(restaurantEntity.getLatitude(),
+          restaurantEntity.getLongitude(), CELL_PRECISION);
+      ordinalsByCell.computeIfAbsent(cell, key -> new ArrayList<>()).add(ordinal);
+    }
+
+    Map<String, Cell> cells = new HashMap<>();
+    int largestCell = 0;
+    for (Map.Entry<String, List<Integer>> cellOrdinals : ordinalsByCell.entrySet()) {
+      cells.put(cellOrdinals.getKey(), new Cell(cellOrdinals.getValue(), restaurants));
+      largestCell = Math.max(largestCell, cellOrdinals.getValue().size());
+    }
+    snapshot = new Snapshot(restaurants, cells, largestCell,
+        new OpenHoursIndex(opensAt, closesAt));
+
+    log.info("Geo index rebuilt with {} restaurants in {} cells", restaurants.length,
+        cells.size());
+  }
+
+  /**
+   * Get the list of open restaurants within the specified serving radius, looking only at the
+   * cells that overlap the serving radius.
+   * @return list of open restaurants in the order they were loaded from the database
+   */
+  public List<Restaurant> findRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    Snapshot current = snapshot;
+    BitSet open = current.openHours.openAt(OpeningHours.toMinuteOfDay(currentTime));
+
+    int[] cellMatches = new int[current.largestCell];
+    int[] matches = new int[16];
+    int matchCount = 0;
+
+    for (String geoHash : GeoUtils.findGeoHashesCovering(latitude, longitude,
+        servingRadiusInKms, CELL_PRECISION)) {
+      Cell cell = current.cells.get(geoHash);
+      if (cell == null) {
+        continue;
+      }
+      int cellMatchCount = GeoUtils.findIndicesWithinRadius(latitude, longitude,
+          servingRadiusInKms, cell.latitudes, cell.longitudes, cell.ordinals.length, cellMatches);
+
+      for (int i = 0; i < cellMatchCount; i++) {
+        int ordinal = cell.ordinals[cellMatches[i]];
+        if (open.get(ordinal)) {
+          if (matchCount == matches.length) {
+            matches = Arrays.copyOf(matches, matchCount * 2);
+          }
+          matches[matchCount++] = ordinal;
+        }
+      }
+    }
+
+    Arrays.sort(matches, 0, matchCount);
+
+    List<Restaurant> restaurants = new ArrayList<>(matchCount);
+    for (int i = 0; i < matchCount; i++) {
+      // Callers are free to modify what they get back, so the indexed instance is never handed
+      // out.
+      restaurants.add(EntityMapper.copyOf(current.restaurants[matches[i]]));
+    }
+    return restaurants;
+  }
+
+  private static final class Snapshot {
+
+    private final Restaurant[] restaurants;
+    private final Map<String, Cell> cells;
+    private final int largestCell;
+    private final OpenHoursIndex openHours;
+
+    Snapshot(Restaurant[] restaurants, Map<String, Cell> cells, int largestCell,
+        OpenHoursIndex openHours) {
+      this.restaurants = restaurants;
+      this.cells = cells;
+      this.largestCell = largestCell;
+      this.openHours = openHours;
+    }
+  }
+
+  /**
+   * Restaurants of one geohash cell, stored column-wise for the batch distance check.
+   */
+  private static final class Cell {
+
+    private final int[] ordinals;
+    private final double[] latitudes;
+    private final double[] longitudes;
+
+    Cell(List<Integer> ordinals, Restaurant[] restaurants) {
+      this.ordinals = new int[ordinals.size()];
+      this.latitudes = new double[ordinals.size()];
+      this.longitudes = new double[ordinals.size()];
+      for (int i = 0; i < this.ordinals.length; i++) {
+        Restaurant restaurant = restaurants[ordinals.get(i)];
+        this.ordinals[i] = ordinals.get(i);
+        this.latitudes[i] = restaurant.getLatitude();
+        this.longitudes[i] = restaurant.getLongitude();
+      }
+    }
+  }
+}
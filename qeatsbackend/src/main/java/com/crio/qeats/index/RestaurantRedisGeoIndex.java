@@ -0,0 +1,320 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.configs.RedisConnection;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.utils.EntityMapper;
+import com.crio.qeats.utils.GeoUtils;
+import com.crio.qeats.utils.OpeningHours;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.GeoRadiusResponse;
+import redis.clients.jedis.GeoUnit;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.geo.GeoRadiusParam;
+
+/**
+ * Restaurant locations in a Redis geo set, with each restaurant in a hash of its own.
+ * The set is loaded from Mongo at startup. Restaurants saved through the application are
+ * written as they are saved, restaurants added to the database since the previous sync are
+ * written every sync interval, and a less frequent reconcile rewrites restaurants whose stored
+ * JSON changed and removes deleted ones. Nearby lookups are answered by GEORADIUS plus one
+ * pipelined HMGET per match, so they never touch the database.
+ * Several instances may sync the same set. They agree on its generation, stored next to it in
+ * Redis, and rebuild it only when that generation is gone, which is when Redis lost the set.
+ */
+@Component
+@ConditionalOnProperty(name = "qeats.restaurant-repository-service", havingValue = "redis-geo")
+@Log4j2
+public class RestaurantRedisGeoIndex extends AbstractMongoEventListener<RestaurantEntity> {
+
+  private static final String OPENS_AT = "opensAt";
+  private static final String CLOSES_AT = "closesAt";
+  private static final String RESTAURANT = "restaurant";
+
+  // Redis stores positions as 52 bit geohashes, so the radius is widened a little for GEORADIUS
+  // and the exact distance is checked on the stored coordinates instead.
+  private static final double RADIUS_MARGIN_IN_KMS = 0.01;
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  // SHA-256 of the JSON this instance last wrote or found for each restaurant, by restaurantId,
+  // valid for the set generation below only.
+  private Map<String, byte[]> fingerprints = new HashMap<>();
+  private String generation;
+  // Highest Mongo id written so far, restaurants added later have higher ones.
+  private ObjectId lastSyncedId;
+  private volatile boolean loaded;
+
+  /**
+   * Writes restaurants that are new or changed since the previous reconcile and removes those
+   * no longer in the database. The first one, or one after Redis lost the set, writes
+   * everything.
+   */
+  @PostConstruct
+  @Scheduled(fixedDelayString = "${qeats.redis-geo.reconcile-interval-ms:3600000}",
+      initialDelayString = "${qeats.redis-geo.reconcile-interval-ms:3600000}")
+  public synchronized void sync() {
+    if (!redisConfiguration.isCacheAvailable()) {
+      log.warn("Redis is unavailable, the redis geo index is not synced");
+      return;
+    }
+
+    List<RestaurantEntity> restaurantEntities = restaurantRepository.findAll();
+
+    try (RedisConnection connection = redisConfiguration.getConnection()) {
+      Jedis jedis = connection.getJedis();
+      if (!isSetIntact(jedis)) {
+        // Redis lost the set or another instance rebuilt it, the fingerprints no longer say
+        // what it holds and everything is written again.
+        fingerprints = new HashMap<>();
+        jedis.setnx(GlobalConstants.REDIS_GEO_GENERATION_KEY, UUID.randomUUID().toString());
+        generation = jedis.get(GlobalConstants.REDIS_GEO_GENERATION_KEY);
+      }
+      // Restaurants written by other instances are removed too once they leave the database.
+      Set<String> removedRestaurants =
+          new HashSet<>(jedis.zrange(GlobalConstants.REDIS_GEO_KEY, 0, -1));
+
+      Map<String, byte[]> syncedFingerprints = new HashMap<>();
+      Pipeline pipeline = jedis.pipelined();
+      int written = writeChanged(pipeline, restaurantEntities, syncedFingerprints);
+      for (RestaurantEntity restaurantEntity : restaurantEntities) {
+        removedRestaurants.remove(restaurantEntity.getRestaurantId());
+      }
+      for (String restaurantId : removedRestaurants) {
+        pipeline.zrem(GlobalConstants.REDIS_GEO_KEY, restaurantId);
+        pipeline.del(restaurantKey(restaurantId));
+      }
+      pipeline.sync();
+
+      fingerprints = syncedFingerprints;
+      loaded = true;
+      log.info("Redis geo index synced, {} restaurants written and {} removed", written,
+          removedRestaurants.size());
+    } catch (JedisException | IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Writes restaurants added to the database since the previous sync, reading only those.
+   * Falls back to a full {@link #sync()} until the set has been loaded or when Redis lost it.
+   */
+  @Scheduled(fixedDelayString = "${qeats.redis-geo.sync-interval-ms:60000}",
+      initialDelayString = "${qeats.redis-geo.sync-interval-ms:60000}")
+  public synchronized void syncNewRestaurants() {
+    if (!redisConfiguration.isCacheAvailable()) {
+      log.warn("Redis is unavailable, the redis geo index is not synced");
+      return;
+    }
+
+    boolean setIntact;
+    try (RedisConnection connection = redisConfiguration.getConnection()) {
+      setIntact = isSetIntact(connection.getJedis());
+    } catch (JedisException e) {
+      e.printStackTrace();
+      return;
+    }
+    if (!setIntact) {
+      sync();
+      return;
+    }
+
+    Query newRestaurants = lastSyncedId == null ? new Query()
+        : new Query(Criteria.where("_id").gt(lastSyncedId));
+    List<RestaurantEntity> restaurantEntities =
+        mongoTemplate.find(newRestaurants, RestaurantEntity.class);
+
+    try (RedisConnection connection = redisConfiguration.getConnection()) {
+      Pipeline pipeline = connection.getJedis().pipelined();
+      int written = writeChanged(pipeline, restaurantEntities, fingerprints);
+      pipeline.sync();
+      if (written > 0) {
+        log.info("Redis geo index synced, {} new restaurants written", written);
+      }
+    } catch (JedisException | IOException e) {
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Writes a restaurant saved through the application right away, so lookups see it before
+   * the next sync.
+   */
+  @Override
+  public synchronized void onAfterSave(AfterSaveEvent<RestaurantEntity> event) {
+    if (!loaded || !redisConfiguration.isCacheAvailable()) {
+      return;
+    }
+
+    try (RedisConnection connection = redisConfiguration.getConnection()) {
+      Pipeline pipeline = connection.getJedis().pipelined();
+      writeChanged(pipeline, Collections.singletonList(event.getSource()), fingerprints);
+      pipeline.sync();
+    } catch (JedisException | IOException e) {
+      // The next reconcile writes it.
+      e.printStackTrace();
+    }
+  }
+
+  // Whether the set is still the generation this instance synced, so its fingerprints hold.
+  private boolean isSetIntact(Jedis jedis) {
+    return loaded && generation != null
+        && generation.equals(jedis.get(GlobalConstants.REDIS_GEO_GENERATION_KEY))
+        && jedis.exists(GlobalConstants.REDIS_GEO_KEY);
+  }
+
+  // Queues writes of the restaurants whose stored JSON differs from their fingerprint and
+  // records the fingerprints of all of them. Returns the number of restaurants queued.
+  private int writeChanged(Pipeline pipeline, List<RestaurantEntity> restaurantEntities,
+      Map<String, byte[]> syncedFingerprints) throws IOException {
+    int written = 0;
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      if (restaurantEntity.getId() != null && ObjectId.isValid(restaurantEntity.getId())) {
+        ObjectId id = new ObjectId(restaurantEntity.getId());
+        if (lastSyncedId == null || id.compareTo(lastSyncedId) > 0) {
+          lastSyncedId = id;
+        }
+      }
+
+      Restaurant restaurant = EntityMapper.toRestaurant(restaurantEntity);
+      String restaurantId = restaurant.getRestaurantId();
+      String json = objectMapper.writeValueAsString(restaurant);
+      byte[] fingerprint = fingerprint(json);
+      boolean unchanged = Arrays.equals(fingerprint, fingerprints.get(restaurantId));
+      syncedFingerprints.put(restaurantId, fingerprint);
+      if (unchanged) {
+        continue;
+      }
+
+      Map<String, String> fields = new HashMap<>();
+      fields.put(OPENS_AT, String.valueOf(OpeningHours.toMinuteOfDay(restaurant.getOpensAt())));
+      fields.put(CLOSES_AT, String.valueOf(OpeningHours.toMinuteOfDay(restaurant.getClosesAt())));
+      fields.put(RESTAURANT, json);
+      pipeline.hmset(restaurantKey(restaurantId), fields);
+      pipeline.geoadd(GlobalConstants.REDIS_GEO_KEY, restaurant.getLongitude(),
+          restaurant.getLatitude(), restaurantId);
+      written++;
+    }
+    return written;
+  }
+
+  private static byte[] fingerprint(String json) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(json.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Whether the set has been loaded by this instance, lookups before that would miss
+   * restaurants.
+   */
+  public boolean isLoaded() {
+    return loaded;
+  }
+
+  /**
+   * Get the list of open restaurants within the specified serving radius.
+   * @return list of open restaurants, nearest first
+   * @throws JedisException if Redis fails
+   */
+  public List<Restaurant> findRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    int minuteOfDay = OpeningHours.toMinuteOfDay(currentTime);
+    List<Restaurant> restaurants = new ArrayList<>();
+
+    try (RedisConnection connection = redisConfiguration.getConnection()) {
+      Jedis jedis = connection.getJedis();
+      List<GeoRadiusResponse> members = jedis.georadius(GlobalConstants.REDIS_GEO_KEY,
+          longitude, latitude, servingRadiusInKms + RADIUS_MARGIN_IN_KMS, GeoUnit.KM,
+          GeoRadiusParam.geoRadiusParam().sortAscending());
+      if (members.isEmpty()) {
+        return restaurants;
+      }
+
+      Pipeline pipeline = jedis.pipelined();
+      List<Response<List<String>>> responses = new ArrayList<>(members.size());
+      for (GeoRadiusResponse member : members) {
+        responses.add(pipeline.hmget(restaurantKey(member.getMemberByString()), OPENS_AT,
+            CLOSES_AT, RESTAURANT));
+      }
+      pipeline.sync();
+
+      for (Response<List<String>> response : responses) {
+        List<String> fields = response.get();
+        // A restaurant removed between GEORADIUS and HMGET has no fields left.
+        if (fields.get(2) == null || !OpeningHours.isOpen(Integer.parseInt(fields.get(0)),
+            Integer.parseInt(fields.get(1)), minuteOfDay)) {
+          continue;
+        }
+        Restaurant restaurant = readRestaurant(fields.get(2));
+        if (restaurant != null && GeoUtils.findDistanceInKm(latitude, longitude,
+            restaurant.getLatitude(), restaurant.getLongitude()) < servingRadiusInKms) {
+          restaurants.add(restaurant);
+        }
+      }
+    }
+    return restaurants;
+  }
+
+  private Restaurant readRestaurant(String json) {
+    try {
+      return objectMapper.readValue(json, Restaurant.class);
+    } catch (IOException e) {
+      e.printStackTrace();
+      return null;
+    }
+  }
+
+  private static String restaurantKey(String restaurantId) {
+    return GlobalConstants.REDIS_RESTAURANT_KEY_PREFIX + restaurantId;
+  }
+}
@@ -0,0 +1,289 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.ItemRepository;
+import com.crio.qeats.repositories.MenuRepository;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.utils.EntityMapper;
+import com.crio.qeats.utils.GeoUtils;
+import com.crio.qeats.utils.OpeningHours;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory inverted index over the searchable text of every restaurant: its name, its
+ * attributes, and the names and attributes of the items on its menu.
+ * Text is split into lower case words and every prefix of every word points to the restaurants
+ * having it, so a search is a few map lookups with partial, case-insensitive matching.
+ * A restaurant matches when each word of the search is the start of a word in the same field.
+ * The index is loaded from Mongo at startup and rebuilt periodically, a rebuild swaps in a new
+ * immutable snapshot so readers never block.
+ */
+@Component
+@ConditionalOnProperty(name = "qeats.search.mode", havingValue = "index")
+@Log4j2
+public class RestaurantSearchIndex {
+
+  private static final int NAME = 0;
+  private static final int ATTRIBUTES = 1;
+  private static final int ITEM_NAMES = 2;
+  private static final int ITEM_ATTRIBUTES = 3;
+  private static final int FIELDS = 4;
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  @Autowired
+  private MenuRepository menuRepository;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  private volatile Snapshot snapshot = new Snapshot(new Restaurant[0], newFields(),
+      new OpenHoursIndex(new int[0], new int[0]));
+
+  /**
+   * Reloads restaurants, menus and items from the database and replaces the current snapshot.
+   */
+  @PostConstruct
+  @Scheduled(fixedDelayString = "${qeats.search-index.refresh-interval-ms:300000}",
+      initialDelayString = "${qeats.search-index.refresh-interval-ms:300000}")
+  public void rebuild() {
+    List<RestaurantEntity> restaurantEntities = new ArrayList<>(restaurantRepository.findAll());
+    restaurantEntities.sort(Comparator.comparing(RestaurantEntity::getRestaurantId));
+
+    Map<String, List<String>> attributesByItemId = new HashMap<>();
+    for (ItemEntity itemEntity : itemRepository.findAll()) {
+      attributesByItemId.put(itemEntity.getItemId(), itemEntity.getAttributes());
+    }
+    Map<String, List<MenuEntity>> menusByRestaurantId = new HashMap<>();
+    for (MenuEntity menuEntity : menuRepository.findAll()) {
+      menusByRestaurantId.computeIfAbsent(menuEntity.getRestaurantId(),
+          key -> new ArrayList<>()).add(menuEntity);
+    }
+
+    Restaurant[] restaurants = new Restaurant[restaurantEntities.size()];
+    int[] opensAt = new int[restaurants.length];
+    int[] closesAt = new int[restaurants.length];
+    List<Map<String, Postings>> postings = new ArrayList<>(FIELDS);
+    for (int field = 0; field < FIELDS; field++) {
+      postings.add(new HashMap<>());
+    }
+
+    // Ordinals follow restaurantId, so every postings list is filled in ascending order.
+    for (int ordinal = 0; ordinal < restaurants.length; ordinal++) {
+      RestaurantEntity restaurantEntity = restaurantEntities.get(ordinal);
+      restaurants[ordinal] = EntityMapper.toRestaurant(restaurantEntity);
+      opensAt[ordinal] = OpeningHours.toMinuteOfDay(restaurantEntity.getOpensAt());
+      closesAt[ordinal] = OpeningHours.toMinuteOfDay(restaurantEntity.getClosesAt());
+
+      addText(postings.get(NAME), ordinal, restaurantEntity.getName());
+      addTexts(postings.get(ATTRIBUTES), ordinal, restaurantEntity.getAttributes());
+      List<MenuEntity> menus = menusByRestaurantId.getOrDefault(
+          restaurantEntity.getRestaurantId(), Collections.emptyList());
+      for (MenuEntity menuEntity : menus) {
+        if (menuEntity.getItems() == null) {
+          continue;
+        }
+        for (Item item : menuEntity.getItems()) {
+          addText(postings.get(ITEM_NAMES), ordinal, item.getName());
+          addTexts(postings.get(ITEM_ATTRIBUTES), ordinal, item.getAttributes());
+          addTexts(postings.get(ITEM_ATTRIBUTES), ordinal,
+              attributesByItemId.get(item.getItemId()));
+        }
+      }
+    }
+
+    List<Map<String, int[]>> fields = newFields();
+    int prefixes = 0;
+    for (int field = 0; field < FIELDS; field++) {
+      for (Map.Entry<String, Postings> prefix : postings.get(field).entrySet()) {
+        fields.get(field).put(prefix.getKey(), prefix.getValue().toArray());
+      }
+      prefixes += fields.get(field).size();
+    }
+    snapshot = new Snapshot(restaurants, fields, new OpenHoursIndex(opensAt, closesAt));
+
+    log.info("Search index rebuilt with {} restaurants and {} prefixes", restaurants.length,
+        prefixes);
+  }
+
+  /**
+   * Get the open restaurants within the serving radius whose name, attributes, item names or
+   * item attributes match the search string.
+   * @return list of matching restaurants, name matches first, then attributes, item names and
+   *     item attributes, each restaurant once and by restaurantId within a field
+   */
+  public List<Restaurant> findRestaurants(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    List<String> words = tokenize(searchString);
+    if (words.isEmpty()) {
+      return new ArrayList<>();
+    }
+
+    Snapshot current = snapshot;
+    BitSet open = current.openHours.openAt(OpeningHours.toMinuteOfDay(currentTime));
+    BitSet seen = new BitSet(current.restaurants.length);
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (Map<String, int[]> field : current.fields) {
+      for (int ordinal : findOrdinalsMatchingAll(field, words)) {
+        if (!open.get(ordinal) || seen.get(ordinal)) {
+          continue;
+        }
+        seen.set(ordinal);
+        Restaurant restaurant = current.restaurants[ordinal];
+        if (GeoUtils.findDistanceInKm(latitude, longitude, restaurant.getLatitude(),
+            restaurant.getLongitude()) < servingRadiusInKms) {
+          restaurants.add(EntityMapper.copyOf(restaurant));
+        }
+      }
+    }
+    return restaurants;
+  }
+
+  /**
+   * Splits text into lower case words of letters and digits.
+   */
+  static List<String> tokenize(String text) {
+    List<String> words = new ArrayList<>();
+    if (text == null) {
+      return words;
+    }
+    String lowerCase = text.toLowerCase(Locale.ROOT);
+    int start = -1;
+    for (int i = 0; i <= lowerCase.length(); i++) {
+      boolean wordCharacter = i < lowerCase.length()
+          && Character.isLetterOrDigit(lowerCase.charAt(i));
+      if (wordCharacter && start < 0) {
+        start = i;
+      } else if (!wordCharacter && start >= 0) {
+        words.add(lowerCase.substring(start, i));
+        start = -1;
+      }
+    }
+    return words;
+  }
+
+  // Intersects the sorted postings of every word, starting from the shortest.
+  private static int[] findOrdinalsMatchingAll(Map<String, int[]> field, List<String> words) {
+    int[][] postings = new int[words.size()][];
+    for (int i = 0; i < postings.length; i++) {
+      postings[i] = field.get(words.get(i));
+      if (postings[i] == null) {
+        return new int[0];
+      }
+    }
+    Arrays.sort(postings, Comparator.comparingInt(ordinals -> ordinals.length));
+
+    int[] result = postings[0];
+    for (int i = 1; i < postings.length && result.length > 0; i++) {
+      result = intersect(result, postings[i]);
+    }
+    return result;
+  }
+
+  private static int[] intersect(int[] left, int[] right) {
+    int[] result = new int[Math.min(left.length, right.length)];
+    int size = 0;
+    int i = 0;
+    int j = 0;
+    while (i < left.length && j < right.length) {
+      if (left[i] < right[j]) {
+        i++;
+      } else if (left[i] > right[j]) {
+        j++;
+      } else {
+        result[size++] = left[i];
+        i++;
+        j++;
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  private static void addTexts(Map<String, Postings> field, int ordinal, List<String> texts) {
+    if (texts == null) {
+      return;
+    }
+    for (String text : texts) {
+      addText(field, ordinal, text);
+    }
+  }
+
+  private static void addText(Map<String, Postings> field, int ordinal, String text) {
+    for (String word : tokenize(text)) {
+      for (int length = 1; length <= word.length(); length++) {
+        field.computeIfAbsent(word.substring(0, length), key -> new Postings()).add(ordinal);
+      }
+    }
+  }
+
+  private static List<Map<String, int[]>> newFields() {
+    List<Map<String, int[]>> fields = new ArrayList<>(FIELDS);
+    for (int field = 0; field < FIELDS; field++) {
+      fields.add(new HashMap<>());
+    }
+    return fields;
+  }
+
+  /**
+   * Ordinals of the restaurants having a prefix, added in ascending order.
+   */
+  private static final class Postings {
+
+    private int[] ordinals = new int[2];
+    private int size;
+
+    void add(int ordinal) {
+      if (size > 0 && ordinals[size - 1] == ordinal) {
+        return;
+      }
+      if (size == ordinals.length) {
+        ordinals = Arrays.copyOf(ordinals, size * 2);
+      }
+      ordinals[size++] = ordinal;
+    }
+
+    int[] toArray() {
+      return Arrays.copyOf(ordinals, size);
+    }
+  }
+
+  private static final class Snapshot {
+
+    private final Restaurant[] restaurants;
+    private final List<Map<String, int[]>> fields;
+    private final OpenHoursIndex openHours;
+
+    Snapshot(Restaurant[] restaurants, List<Map<String, int[]>> fields,
+        OpenHoursIndex openHours) {
+      this.restaurants = restaurants;
+      this.fields = fields;
+      this.openHours = openHours;
+    }
+  }
+}
@@ -0,0 +1,385 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.dto.Suggestion;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.MenuRepository;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.utils.GeoUtils;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Typeahead completions over restaurant names, cuisines and item names, held in memory in a
+ * {@link SuggestionTrie}. A suggestion is reachable from the start of each of its words, so
+ * "bir" completes both "Biryani Nights" and "Chicken Biryani".
+ * The popularity of a suggestion is the number of restaurants offering it; a lookup ranks the
+ * completions by how many of those restaurants are near the caller. Lookups walk the trie best
+ * first on popularity, or, when the caller has few restaurants nearby, count the suggestions of
+ * those restaurants within the range of keys the trie gives for the prefix. Nearby restaurants
+ * are found in the geohash cells overlapping the serving radius, like {@link RestaurantGeoIndex}
+ * does, so a lookup never touches every restaurant.
+ * Reloaded from Mongo at startup and periodically, a reload swaps in a new snapshot.
+ */
+@Component
+@ConditionalOnProperty(name = "qeats.suggest.enabled", havingValue = "true")
+@Log4j2
+public class SuggestionIndex {
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  @Autowired
+  private MenuRepository menuRepository;
+
+  private volatile Snapshot snapshot = new Snapshot(new Suggestion[0], new int[0][],
+      new int[0][], new int[0][], Collections.emptyMap(), 0,
+      new SuggestionTrie(new TreeMap<>(), new int[0]));
+
+  /**
+   * Reloads restaurants and menus from the database and replaces the current snapshot.
+   */
+  @PostConstruct
+  @Scheduled(fixedDelayString = "${qeats.suggest.refresh-interval-ms:300000}",
+      initialDelayString = "${qeats.suggest.refresh-interval-ms:300000}")
+  public void rebuild() {
+    List<RestaurantEntity> restaurantEntities = new ArrayList<>(restaurantRepository.findAll());
+    restaurantEntities.sort(Comparator.comparing(RestaurantEntity::getRestaurantId));
+    Map<String, Integer> ordinalsByRestaurantId = new HashMap<>();
+
+    double[] latitudes = new double[restaurantEntities.size()];
+    double[] longitudes = new double[latitudes.length];
+    Suggestions suggestions = new Suggestions();
+    for (int ordinal = 0; ordinal < latitudes.length; ordinal++) {
+      RestaurantEntity restaurantEntity = restaurantEntities.get(ordinal);
+      ordinalsByRestaurantId.put(restaurantEntity.getRestaurantId(), ordinal);
+      latitudes[ordinal] = restaurantEntity.getLatitude();
+      longitudes[ordinal] = restaurantEntity.getLongitude();
+
+      suggestions.add(Suggestion.Type.RESTAURANT, restaurantEntity.getName(), ordinal);
+      if (restaurantEntity.getAttributes() != null) {
+        for (String attribute : restaurantEntity.getAttributes()) {
+          suggestions.add(Suggestion.Type.CUISINE, attribute, ordinal);
+        }
+      }
+    }
+    for (MenuEntity menuEntity : menuRepository.findAll()) {
+      Integer ordinal = ordinalsByRestaurantId.get(menuEntity.getRestaurantId());
+      if (ordinal == null || menuEntity.getItems() == null) {
+        continue;
+      }
+      for (Item item : menuEntity.getItems()) {
+        suggestions.add(Suggestion.Type.ITEM, item.getName(), ordinal);
+      }
+    }
+
+    snapshot = suggestions.toSnapshot(latitudes, longitudes);
+
+    log.info("Suggestion index rebuilt with {} suggestions over {} restaurants",
+        snapshot.suggestions.length, latitudes.length);
+  }
+
+  /**
+   * Get the completions of what the user typed so far, ranked by the number of restaurants
+   * within the serving radius that they lead to.
+   * @return at most limit suggestions, none when nothing nearby matches
+   */
+  public List<Suggestion> findSuggestions(Double latitude, Double longitude, String prefix,
+      int limit, Double servingRadiusInKms) {
+    List<Suggestion> suggestions = new ArrayList<>();
+    String key = String.join(" ", RestaurantSearchIndex.tokenize(prefix));
+    if (key.isEmpty()) {
+      return suggestions;
+    }
+
+    Snapshot current = snapshot;
+    int[] keyRange = current.trie.findKeyRange(key);
+    if (keyRange == null) {
+      return suggestions;
+    }
+    int[] nearbyOrdinals = findNearbyOrdinals(current, latitude, longitude, servingRadiusInKms);
+    int nearbyCount = nearbyOrdinals.length;
+
+    // The popularity bounds of the trie count restaurants everywhere, they prune little when
+    // few are nearby. Counting the suggestions of the nearby restaurants is then cheaper.
+    long nearbySuggestions = 0;
+    for (int i = 0; i < nearbyCount; i++) {
+      nearbySuggestions += current.restaurantSuggestions[nearbyOrdinals[i]].length;
+    }
+    int[] top = nearbySuggestions < keyRange[1] - keyRange[0]
+        ? findTopNearby(current, nearbyOrdinals, nearbyCount, keyRange, limit)
+        : findTopInTrie(current, nearbyOrdinals, nearbyCount, key, limit);
+    for (int suggestionId : top) {
+      Suggestion suggestion = current.suggestions[suggestionId];
+      suggestions.add(new Suggestion(suggestion.getText(), suggestion.getType()));
+    }
+    return suggestions;
+  }
+
+  // Ordinals of the restaurants within the serving radius in ascending order, looking only at
+  // the cells that overlap it.
+  private static int[] findNearbyOrdinals(Snapshot current, double latitude, double longitude,
+      double servingRadiusInKms) {
+    int[] cellMatches = new int[current.largestCell];
+    int[] nearby = new int[16];
+    int nearbyCount = 0;
+    for (String geoHash : GeoUtils.findGeoHashesCovering(latitude, longitude,
+        servingRadiusInKms, RestaurantGeoIndex.CELL_PRECISION)) {
+      Cell cell = current.cells.get(geoHash);
+      if (cell == null) {
+        continue;
+      }
+      int cellMatchCount = GeoUtils.findIndicesWithinRadius(latitude, longitude,
+          servingRadiusInKms, cell.latitudes, cell.longitudes, cell.ordinals.length, cellMatches);
+      for (int i = 0; i < cellMatchCount; i++) {
+        if (nearbyCount == nearby.length) {
+          nearby = Arrays.copyOf(nearby, nearbyCount * 2);
+        }
+        nearby[nearbyCount++] = cell.ordinals[cellMatches[i]];
+      }
+    }
+    int[] sorted = Arrays.copyOf(nearby, nearbyCount);
+    Arrays.sort(sorted);
+    return sorted;
+  }
+
+  // Walks the trie best first, scoring each suggestion reached by its nearby restaurants.
+  private static int[] findTopInTrie(Snapshot current, int[] nearbyOrdinals, int nearbyCount,
+      String key, int limit) {
+    return current.trie.findTop(key, limit, suggestionId -> {
+      int restaurants = 0;
+      for (int ordinal : current.restaurantOrdinals[suggestionId]) {
+        if (Arrays.binarySearch(nearbyOrdinals, 0, nearbyCount, ordinal) >= 0) {
+          restaurants++;
+        }
+      }
+      return restaurants;
+    });
+  }
+
+  // Counts the nearby restaurants of every suggestion with a key in the range, ranked the same
+  // way as the trie does.
+  private static int[] findTopNearby(Snapshot current, int[] nearbyOrdinals, int nearbyCount,
+      int[] keyRange, int limit) {
+    Map<Integer, Integer> restaurantsBySuggestionId = new HashMap<>();
+    for (int i = 0; i < nearbyCount; i++) {
+      for (int suggestionId : current.restaurantSuggestions[nearbyOrdinals[i]]) {
+        for (int keyPosition : current.suggestionKeys[suggestionId]) {
+          if (keyPosition >= keyRange[0] && keyPosition < keyRange[1]) {
+            restaurantsBySuggestionId.merge(suggestionId, 1, Integer::sum);
+            break;
+          }
+        }
+      }
+    }
+
+    List<Map.Entry<Integer, Integer>> ranked =
+        new ArrayList<>(restaurantsBySuggestionId.entrySet());
+    ranked.sort(Comparator.comparing((Map.Entry<Integer, Integer> entry) -> -entry.getValue())
+        .thenComparing(Map.Entry::getKey));
+    int[] top = new int[Math.min(limit, ranked.size())];
+    for (int i = 0; i < top.length; i++) {
+      top[i] = ranked.get(i).getKey();
+    }
+    return top;
+  }
+
+  /**
+   * Suggestions collected during a rebuild. The same words with a different case or
+   * punctuation make one suggestion, shown as first seen.
+   */
+  private static final class Suggestions {
+
+    private final Map<String, Integer> idsByKey = new HashMap<>();
+    private final List<Suggestion> suggestions = new ArrayList<>();
+    private final List<Ordinals> restaurants = new ArrayList<>();
+
+    void add(Suggestion.Type type, String text, int ordinal) {
+      String key = String.join(" ", RestaurantSearchIndex.tokenize(text));
+      if (key.isEmpty()) {
+        return;
+      }
+      Integer suggestionId = idsByKey.get(type + " " + key);
+      if (suggestionId == null) {
+        suggestionId = suggestions.size();
+        idsByKey.put(type + " " + key, suggestionId);
+        suggestions.add(new Suggestion(text.trim(), type));
+        restaurants.add(new Ordinals());
+      }
+      restaurants.get(suggestionId).add(ordinal);
+    }
+
+    Snapshot toSnapshot(double[] latitudes, double[] longitudes) {
+      int[][] restaurantOrdinals = new int[suggestions.size()][];
+      int[] popularity = new int[suggestions.size()];
+      TreeMap<String, List<Integer>> suggestionIdsByKey = new TreeMap<>();
+      for (int suggestionId = 0; suggestionId < restaurantOrdinals.length; suggestionId++) {
+        restaurantOrdinals[suggestionId] = restaurants.get(suggestionId).toArray();
+        popularity[suggestionId] = restaurantOrdinals[suggestionId].length;
+
+        // Every word starts a key, "paneer tikka pizza", "tikka pizza" and "pizza".
+        List<String> words = RestaurantSearchIndex.tokenize(
+            suggestions.get(suggestionId).getText());
+        for (int start = 0; start < words.size(); start++) {
+          suggestionIdsByKey.computeIfAbsent(String.join(" ", words.subList(start, words.size())),
+              key -> new ArrayList<>()).add(suggestionId);
+        }
+      }
+
+      // Keys are numbered in sorted order, the keys of a prefix then form a range.
+      TreeMap<String, int[]> trieKeys = new TreeMap<>();
+      List<List<Integer>> keyPositions = new ArrayList<>();
+      for (int suggestionId = 0; suggestionId < restaurantOrdinals.length; suggestionId++) {
+        keyPositions.add(new ArrayList<>());
+      }
+      int keyPosition = 0;
+      for (Map.Entry<String, List<Integer>> key : suggestionIdsByKey.entrySet()) {
+        trieKeys.put(key.getKey(), toArray(key.getValue()));
+        for (int suggestionId : key.getValue()) {
+          keyPositions.get(suggestionId).add(keyPosition);
+        }
+        keyPosition++;
+      }
+      int[][] suggestionKeys = new int[restaurantOrdinals.length][];
+      for (int suggestionId = 0; suggestionId < suggestionKeys.length; suggestionId++) {
+        suggestionKeys[suggestionId] = toArray(keyPositions.get(suggestionId));
+      }
+
+      Ordinals[] suggestionsByOrdinal = new Ordinals[latitudes.length];
+      for (int ordinal = 0; ordinal < latitudes.length; ordinal++) {
+        suggestionsByOrdinal[ordinal] = new Ordinals();
+      }
+      for (int suggestionId = 0; suggestionId < restaurantOrdinals.length; suggestionId++) {
+        for (int ordinal : restaurantOrdinals[suggestionId]) {
+          suggestionsByOrdinal[ordinal].add(suggestionId);
+        }
+      }
+      int[][] restaurantSuggestions = new int[latitudes.length][];
+      for (int ordinal = 0; ordinal < latitudes.length; ordinal++) {
+        restaurantSuggestions[ordinal] = suggestionsByOrdinal[ordinal].toArray();
+      }
+
+      Map<String, List<Integer>> ordinalsByCell = new HashMap<>();
+      for (int ordinal = 0; ordinal < latitudes.length; ordinal++) {
+        String cell = GeoHash.geoHashStringWithCharacterPrecision(latitudes[ordinal],
+            longitudes[ordinal], RestaurantGeoIndex.CELL_PRECISION);
+        ordinalsByCell.computeIfAbsent(cell, key -> new ArrayList<>()).add(ordinal);
+      }
+      Map<String, Cell> cells = new HashMap<>();
+      int largestCell = 0;
+      for (Map.Entry<String, List<Integer>> cellOrdinals : ordinalsByCell.entrySet()) {
+        cells.put(cellOrdinals.getKey(),
+            new Cell(cellOrdinals.getValue(), latitudes, longitudes));
+        largestCell = Math.max(largestCell, cellOrdinals.getValue().size());
+      }
+
+      return new Snapshot(suggestions.toArray(new Suggestion[0]), restaurantOrdinals,
+          restaurantSuggestions, suggestionKeys, cells, largestCell,
+          new SuggestionTrie(trieKeys, popularity));
+    }
+
+    private static int[] toArray(List<Integer> values) {
+      return values.stream().mapToInt(Integer::intValue).toArray();
+    }
+  }
+
+  /**
+   * Restaurant ordinals of a suggestion, or suggestion ids of a restaurant. Most suggestions
+   * belong to a handful of restaurants, a growing array stays small where a bitset would span
+   * every restaurant.
+   */
+  private static final class Ordinals {
+
+    private int[] ordinals = new int[2];
+    private int size;
+
+    void add(int ordinal) {
+      if (size > 0 && ordinals[size - 1] == ordinal) {
+        return;
+      }
+      if (size == ordinals.length) {
+        ordinals = Arrays.copyOf(ordinals, size * 2);
+      }
+      ordinals[size++] = ordinal;
+    }
+
+    // Menus arrive in any order, so the same restaurant may have been added more than once.
+    int[] toArray() {
+      int[] sorted = Arrays.copyOf(ordinals, size);
+      Arrays.sort(sorted);
+      int distinct = 0;
+      for (int i = 0; i < sorted.length; i++) {
+        if (i == 0 || sorted[i] != sorted[i - 1]) {
+          sorted[distinct++] = sorted[i];
+        }
+      }
+      return Arrays.copyOf(sorted, distinct);
+    }
+  }
+
+  private static final class Snapshot {
+
+    private final Suggestion[] suggestions;
+    // Restaurants offering each suggestion and suggestions of each restaurant, by ordinal.
+    private final int[][] restaurantOrdinals;
+    private final int[][] restaurantSuggestions;
+    // Sorted positions of the keys of each suggestion.
+    private final int[][] suggestionKeys;
+    private final Map<String, Cell> cells;
+    private final int largestCell;
+    private final SuggestionTrie trie;
+
+    Snapshot(Suggestion[] suggestions, int[][] restaurantOrdinals,
+        int[][] restaurantSuggestions, int[][] suggestionKeys, Map<String, Cell> cells,
+        int largestCell, SuggestionTrie trie) {
+      this.suggestions = suggestions;
+      this.restaurantOrdinals = restaurantOrdinals;
+      this.restaurantSuggestions = restaurantSuggestions;
+      this.suggestionKeys = suggestionKeys;
+      this.cells = cells;
+      this.largestCell = largestCell;
+      this.trie = trie;
+    }
+  }
+
+  /**
+   * Restaurants of one geohash cell, stored column-wise for the batch distance check.
+   */
+  private static final class Cell {
+
+    private final int[] ordinals;
+    private final double[] latitudes;
+    private final double[] longitudes;
+
+    Cell(List<Integer> ordinals, double[] latitudes, double[] longitudes) {
+      this.ordinals = new int[ordinals.size()];
+      this.latitudes = new double[ordinals.size()];
+      this.longitudes = new double[ordinals.size()];
+      for (int i = 0; i < this.ordinals.length; i++) {
+        this.ordinals[i] = ordinals.get(i);
+        this.latitudes[i] = latitudes[ordinals.get(i)];
+        this.longitudes[i] = longitudes[ordinals.get(i)];
+      }
+    }
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Compressed prefix trie from lower case keys to suggestion ids. Chains of single child nodes
+ * are merged into one node labelled with the whole run of characters, so a lookup visits one
+ * node per branching point rather than one per character.
+ * Every node holds the highest popularity found in its subtree; the best completions of a
+ * prefix are taken best first from those bounds, leaving unpromising subtrees unvisited.
+ * Immutable once built.
+ */
+public class SuggestionTrie {
+
+  // Higher scores first; at equal scores subtrees are opened before suggestions are taken,
+  // so that ties among suggestions go to the lowest id.
+  private static final Comparator<Candidate> BEST_FIRST = Comparator
+      .comparingInt((Candidate candidate) -> -candidate.score)
+      .thenComparing(candidate -> candidate.node == null)
+      .thenComparingInt(candidate -> candidate.suggestionId);
+
+  private final Node root;
+
+  /**
+   * @param suggestionIdsByKey suggestions reachable by each key
+   * @param popularity score of every suggestion, indexed by suggestion id
+   */
+  public SuggestionTrie(SortedMap<String, int[]> suggestionIdsByKey, int[] popularity) {
+    String[] keys = suggestionIdsByKey.keySet().toArray(new String[0]);
+    int[][] suggestionIds = suggestionIdsByKey.values().toArray(new int[0][]);
+    root = keys.length == 0 ? null : build(keys, suggestionIds, popularity, 0, keys.length, 0);
+  }
+
+  /**
+   * Finds the keys starting with a prefix, they are consecutive in sorted order.
+   * @return position of the first such key among all keys in sorted order and the position
+   *     after the last, null if there are none
+   */
+  public int[] findKeyRange(String prefix) {
+    Node node = find(prefix);
+    return node == null ? null : new int[] {node.from, node.to};
+  }
+
+  /**
+   * Finds the best completions of a prefix. The local score of a suggestion must not exceed
+   * its popularity, suggestions scoring zero are left out.
+   * @param prefix start of the keys to complete
+   * @param limit most suggestions to return
+   * @param localScore score of a suggestion for this lookup, such as its popularity nearby
+   * @return ids of the suggestions, highest local score first, ties by ascending id
+   */
+  public int[] findTop(String prefix, int limit, IntUnaryOperator localScore) {
+    Node node = find(prefix);
+    if (node == null || limit <= 0) {
+      return new int[0];
+    }
+
+    int[] top = new int[limit];
+    int size = 0;
+    BitSet scored = new BitSet();
+    PriorityQueue<Candidate> queue = new PriorityQueue<>(BEST_FIRST);
+    queue.add(new Candidate(node.maxScore, node, -1));
+    while (size < limit && !queue.isEmpty()) {
+      Candidate candidate = queue.poll();
+      if (candidate.node == null) {
+        top[size++] = candidate.suggestionId;
+        continue;
+      }
+      for (int suggestionId : candidate.node.suggestionIds) {
+        if (scored.get(suggestionId)) {
+          continue;
+        }
+        scored.set(suggestionId);
+        int score = localScore.applyAsInt(suggestionId);
+        if (score > 0) {
+          queue.add(new Candidate(score, null, suggestionId));
+        }
+      }
+      for (Node child : candidate.node.children) {
+        queue.add(new Candidate(child.maxScore, child, -1));
+      }
+    }
+    return Arrays.copyOf(top, size);
+  }
+
+  // Finds the node whose subtree holds exactly the keys starting with the prefix.
+  private Node find(String prefix) {
+    Node node = root;
+    int matched = 0;
+    while (node != null) {
+      int length = Math.min(node.label.length(), prefix.length() - matched);
+      if (!prefix.regionMatches(matched, node.label, 0, length)) {
+        return null;
+      }
+      matched += length;
+      if (matched == prefix.length()) {
+        return node;
+      }
+      node = node.child(prefix.charAt(matched));
+    }
+    return null;
+  }
+
+  // Builds the node for the sorted keys from (inclusive) to to (exclusive), which all share
+  // their first depth characters. Its label runs to the end of their longest common prefix.
+  private static Node build(String[] keys, int[][] suggestionIds, int[] popularity, int from,
+      int to, int depth) {
+    String first = keys[from];
+    String last = keys[to - 1];
+    int end = depth;
+    while (end < first.length() && end < last.length()
+        && first.charAt(end) == last.charAt(end)) {
+      end++;
+    }
+
+    int[] terminal = new int[0];
+    int maxScore = 0;
+    int start = from;
+    if (first.length() == end) {
+      terminal = suggestionIds[from];
+      for (int suggestionId : terminal) {
+        maxScore = Math.max(maxScore, popularity[suggestionId]);
+      }
+      start++;
+    }
+
+    int childCount = 0;
+    for (int i = start; i < to; i++) {
+      if (i == start || keys[i].charAt(end) != keys[i - 1].charAt(end)) {
+        childCount++;
+      }
+    }
+    char[] firstChars = new char[childCount];
+    Node[] children = new Node[childCount];
+    for (int child = 0, i = start; i < to; child++) {
+      int groupEnd = i + 1;
+      while (groupEnd < to && keys[groupEnd].charAt(end) == keys[i].charAt(end)) {
+        groupEnd++;
+      }
+      firstChars[child] = keys[i].charAt(end);
+      children[child] = build(keys, suggestionIds, popularity, i, groupEnd, end);
+      maxScore = Math.max(maxScore, children[child].maxScore);
+      i = groupEnd;
+    }
+    return new Node(first.substring(depth, end), from, to, terminal, firstChars, children,
+        maxScore);
+  }
+
+  private static final class Node {
+
+    private final String label;
+    // Positions of the keys under this node, in sorted order.
+    private final int from;
+    private final int to;
+    private final int[] suggestionIds;
+    private final char[] firstChars;
+    private final Node[] children;
+    private final int maxScore;
+
+    Node(String label, int from, int to, int[] suggestionIds, char[] firstChars,
+        Node[] children, int maxScore) {
+      this.label = label;
+      this.from = from;
+      this.to = to;
+      this.suggestionIds = suggestionIds;
+      this.firstChars = firstChars;
+      this.children = children;
+      this.maxScore = maxScore;
+    }
+
+    Node child(char firstChar) {
+      int child = Arrays.binarySearch(firstChars, firstChar);
+      return child < 0 ? null : children[child];
+    }
+  }
+
+  // A subtree bounded by its best popularity, or a suggestion with its local score.
+  private static final class Candidate {
+
+    private final int score;
+    private final Node node;
+    private final int suggestionId;
+
+    Candidate(int score, Node node, int suggestionId) {
+      this.score = score;
+      this.node = node;
+      this.suggestionId = suggestionId;
+    }
+  }
+}
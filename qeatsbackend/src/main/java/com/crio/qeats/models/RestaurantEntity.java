@@ -12,6 +12,7 @@ import javax.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.redis.core.RedisHash;
 
@@ -51,5 +52,8 @@ public class RestaurantEntity {
   @NotNull
   private List<String> attributes = new ArrayList<>();
 
+  // GeoJSON copy of latitude/longitude backing the 2dsphere index, see RestaurantLocationSync.
+  private GeoJsonPoint location;
+
 }
 
@@ -21,5 +21,25 @@ public interface RestaurantRepository extends MongoRepository<RestaurantEntity,
 
   List<RestaurantEntity> findByAttributes(String attr);
 
+  @Query("{location: {$nearSphere: {$geometry: {type: 'Point', coordinates: [?1, ?0]},"
+      + " $maxDistance: ?2}}}")
+  List<RestaurantEntity> findRestaurantsNear(double latitude, double longitude,
+      double maxDistanceInMeters);
+
+  @Query("{name: ?0, location: {$nearSphere: {$geometry: {type: 'Point', coordinates: [?2, ?1]},"
+      + " $maxDistance: ?3}}}")
+  List<RestaurantEntity> findRestaurantsByNameNear(String name, double latitude,
+      double longitude, double maxDistanceInMeters);
+
+  @Query("{attributes: ?0, location: {$nearSphere: {$geometry: {type: 'Point',"
+      + " coordinates: [?2, ?1]}, $maxDistance: ?3}}}")
+  List<RestaurantEntity> findRestaurantsByAttributesNear(String attribute, double latitude,
+      double longitude, double maxDistanceInMeters);
+
+  @Query("{restaurantId: {$in: ?0}, location: {$nearSphere: {$geometry: {type: 'Point',"
+      + " coordinates: [?2, ?1]}, $maxDistance: ?3}}}")
+  List<RestaurantEntity> findRestaurantsByRestaurantIdInNear(List<String> restaurantIds,
+      double latitude, double longitude, double maxDistanceInMeters);
+
 }
 
@@ -0,0 +1,95 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.models.RestaurantEntity;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
+import org.springframework.data.mongodb.core.index.GeospatialIndex;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.BeforeConvertEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the GeoJSON location of restaurants in step with their latitude and longitude for
+ * the mongo-geo repository service. Restaurants saved through the application get it as they
+ * are written, restaurants imported straight into the database get it from a periodic backfill.
+ */
+@Component
+@ConditionalOnProperty(name = "qeats.restaurant-repository-service", havingValue = "mongo-geo")
+@Log4j2
+public class RestaurantLocationSync extends AbstractMongoEventListener<RestaurantEntity> {
+
+  public static final String RESTAURANT_LOCATION_FIELD = "location";
+
+  @Autowired
+  private MongoTemplate mongoTemplate;
+
+  /**
+   * Prepares the restaurants collection for geo queries.
+   * Restaurants imported without a GeoJSON location get one derived from their latitude and
+   * longitude, then the 2dsphere index is created if it does not exist yet.
+   */
+  @PostConstruct
+  public void initGeoIndex() {
+    backfillLocations();
+    mongoTemplate.indexOps(RestaurantEntity.class).ensureIndex(
+        new GeospatialIndex(RESTAURANT_LOCATION_FIELD).typed(GeoSpatialIndexType.GEO_2DSPHERE));
+  }
+
+  /**
+   * Derives the location of restaurants written without one, such as those imported after
+   * startup.
+   */
+  @Scheduled(fixedDelayString = "${qeats.mongo-geo.backfill-interval-ms:300000}",
+      initialDelayString = "${qeats.mongo-geo.backfill-interval-ms:300000}")
+  public void backfillLocations() {
+    Query missingLocation = new Query(Criteria.where(RESTAURANT_LOCATION_FIELD).exists(false));
+    missingLocation.fields().include("latitude").include("longitude");
+
+    List<RestaurantEntity> restaurantEntities =
+        mongoTemplate.find(missingLocation, RestaurantEntity.class);
+
+    BulkOperations bulkOperations =
+        mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RestaurantEntity.class);
+    int updates = 0;
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      if (restaurantEntity.getLatitude() != null && restaurantEntity.getLongitude() != null) {
+        bulkOperations.updateOne(
+            new Query(Criteria.where("_id").is(restaurantEntity.getId())),
+            Update.update(RESTAURANT_LOCATION_FIELD, new GeoJsonPoint(
+                restaurantEntity.getLongitude(), restaurantEntity.getLatitude())));
+        updates++;
+      }
+    }
+    if (updates > 0) {
+      bulkOperations.execute();
+      log.info("Added location to {} restaurants", updates);
+    }
+  }
+
+  @Override
+  public void onBeforeConvert(BeforeConvertEvent<RestaurantEntity> event) {
+    RestaurantEntity restaurantEntity = event.getSource();
+    if (restaurantEntity.getLatitude() != null && restaurantEntity.getLongitude() != null) {
+      restaurantEntity.setLocation(new GeoJsonPoint(
+          restaurantEntity.getLongitude(), restaurantEntity.getLatitude()));
+    }
+  }
+
+}
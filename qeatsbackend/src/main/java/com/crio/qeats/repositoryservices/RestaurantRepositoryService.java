@@ -7,8 +7,13 @@
 package com.crio.qeats.repositoryservices;
 
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.SearchMatch;
+import com.crio.qeats.dto.SearchMatch.Category;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Future;
 import org.springframework.scheduling.annotation.Async;
 
@@ -65,6 +70,44 @@ public interface RestaurantRepositoryService {
   List<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
       String searchString, LocalTime currentTime, Double servingRadiusInKms);
 
+  /**
+   * Get the open restaurants within the specified serving radius matching the search string by
+   * name, attributes, item name or item attributes, each restaurant once and tagged with the
+   * first of those categories it matched.
+   * By default this runs the four lookups above one after another, implementations may answer
+   * all of them at once.
+   * @param searchString Query string for restaurants
+   * @return list of matches, ordered by category
+   */
+  default List<SearchMatch> findRestaurantsMatching(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    Map<String, SearchMatch> matches = new LinkedHashMap<>();
+    for (Category category : Category.values()) {
+      List<Restaurant> restaurants;
+      switch (category) {
+        case NAME:
+          restaurants = findRestaurantsByName(latitude, longitude, searchString, currentTime,
+              servingRadiusInKms);
+          break;
+        case ATTRIBUTES:
+          restaurants = findRestaurantsByAttributes(latitude, longitude, searchString,
+              currentTime, servingRadiusInKms);
+          break;
+        case ITEM_NAME:
+          restaurants = findRestaurantsByItemName(latitude, longitude, searchString,
+              currentTime, servingRadiusInKms);
+          break;
+        default:
+          restaurants = findRestaurantsByItemAttributes(latitude, longitude, searchString,
+              currentTime, servingRadiusInKms);
+      }
+      for (Restaurant restaurant : restaurants) {
+        matches.putIfAbsent(restaurant.getRestaurantId(), new SearchMatch(restaurant, category));
+      }
+    }
+    return new ArrayList<>(matches.values());
+  }
+
 }
 
 
@@ -0,0 +1,37 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.index.RestaurantGeoIndex;
+import java.time.LocalTime;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+/**
+ * Answers nearby lookups from the in-memory {@link RestaurantGeoIndex} instead of scanning the
+ * restaurants collection. Search lookups are served by the database as before.
+ * Enabled with qeats.restaurant-repository-service=geo-index.
+ */
+@Primary
+@Service
+@ConditionalOnProperty(name = "qeats.restaurant-repository-service", havingValue = "geo-index")
+public class RestaurantRepositoryServiceGeoIndexImpl extends RestaurantRepositoryServiceImpl {
+
+  @Autowired
+  private RestaurantGeoIndex restaurantGeoIndex;
+
+  @Override
+  public List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    return restaurantGeoIndex.findRestaurantsCloseBy(latitude, longitude, currentTime,
+        servingRadiusInKms);
+  }
+}
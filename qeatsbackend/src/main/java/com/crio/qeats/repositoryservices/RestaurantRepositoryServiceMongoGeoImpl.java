@@ -0,0 +1,124 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.ItemRepository;
+import com.crio.qeats.repositories.MenuRepository;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.utils.EntityMapper;
+import com.crio.qeats.utils.OpeningHours;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+
+/**
+ * Pushes the serving radius down to Mongo through $nearSphere queries on the 2dsphere indexed
+ * location field, which RestaurantLocationSync keeps current. The database returns only
+ * restaurants inside the radius, nearest first, and only the open-hours check is left to the
+ * application.
+ * Enabled with qeats.restaurant-repository-service=mongo-geo.
+ */
+@Primary
+@Service
+@ConditionalOnProperty(name = "qeats.restaurant-repository-service", havingValue = "mongo-geo")
+public class RestaurantRepositoryServiceMongoGeoImpl implements RestaurantRepositoryService {
+
+  @Autowired
+  private RestaurantRepository restaurantRepository;
+
+  @Autowired
+  private MenuRepository menuRepository;
+
+  @Autowired
+  private ItemRepository itemRepository;
+
+  @Override
+  public List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    return toOpenRestaurants(restaurantRepository.findRestaurantsNear(latitude, longitude,
+        toMeters(servingRadiusInKms)), currentTime);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return toOpenRestaurants(restaurantRepository.findRestaurantsByNameNear(searchString,
+        latitude, longitude, toMeters(servingRadiusInKms)), currentTime);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    return toOpenRestaurants(restaurantRepository.findRestaurantsByAttributesNear(searchString,
+        latitude, longitude, toMeters(servingRadiusInKms)), currentTime);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByItemName(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    List<String> restaurantIds = new ArrayList<>();
+    for (MenuEntity menuEntity : menuRepository.findByItems(searchString)) {
+      restaurantIds.add(menuEntity.getRestaurantId());
+    }
+    return findOpenRestaurantsNear(restaurantIds, latitude, longitude, currentTime,
+        servingRadiusInKms);
+  }
+
+  @Override
+  public List<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
+      String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+    List<String> itemIds = new ArrayList<>();
+    for (ItemEntity itemEntity : itemRepository.findByAttributes(searchString)) {
+      itemIds.add(itemEntity.getId());
+    }
+
+    List<String> restaurantIds = new ArrayList<>();
+    for (MenuEntity menuEntity : menuRepository.findMenusByItemsItemIdIn(itemIds)
+        .orElse(new ArrayList<>())) {
+      restaurantIds.add(menuEntity.getRestaurantId());
+    }
+    return findOpenRestaurantsNear(restaurantIds, latitude, longitude, currentTime,
+        servingRadiusInKms);
+  }
+
+  private List<Restaurant> findOpenRestaurantsNear(List<String> restaurantIds, Double latitude,
+      Double longitude, LocalTime currentTime, Double servingRadiusInKms) {
+    if (restaurantIds.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return toOpenRestaurants(restaurantRepository.findRestaurantsByRestaurantIdInNear(
+        restaurantIds, latitude, longitude, toMeters(servingRadiusInKms)), currentTime);
+  }
+
+  private List<Restaurant> toOpenRestaurants(List<RestaurantEntity> restaurantEntities,
+      LocalTime currentTime) {
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      if (isOpenNow(currentTime, restaurantEntity)) {
+        restaurants.add(EntityMapper.toRestaurant(restaurantEntity));
+      }
+    }
+    return restaurants;
+  }
+
+  private boolean isOpenNow(LocalTime time, RestaurantEntity res) {
+    return OpeningHours.isOpen(OpeningHours.toMinuteOfDay(res.getOpensAt()),
+        OpeningHours.toMinuteOfDay(res.getClosesAt()), OpeningHours.toMinuteOfDay(time));
+  }
+
+  private static double toMeters(Double kms) {
+    return kms * 1000;
+  }
+}
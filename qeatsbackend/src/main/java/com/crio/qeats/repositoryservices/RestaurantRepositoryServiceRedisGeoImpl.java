@@ -0,0 +1,67 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.index.RestaurantRedisGeoIndex;
+import com.crio.qeats.utils.CircuitBreaker;
+import java.time.LocalTime;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.exceptions.JedisException;
+
+/**
+ * Answers nearby lookups from the {@link RestaurantRedisGeoIndex} in Redis, so Mongo is off the
+ * nearby path. Until the index is loaded, and while Redis fails or the circuit breaker is open,
+ * lookups go straight to the database rather than through the Redis cell cache, reading only
+ * the bounding box of the serving radius. Search lookups are served by the database as before.
+ * Enabled with qeats.restaurant-repository-service=redis-geo, or the redis-geo profile.
+ */
+@Primary
+@Service
+@ConditionalOnProperty(name = "qeats.restaurant-repository-service", havingValue = "redis-geo")
+public class RestaurantRepositoryServiceRedisGeoImpl extends RestaurantRepositoryServiceImpl {
+
+  @Autowired
+  private RestaurantRedisGeoIndex restaurantRedisGeoIndex;
+
+  @Autowired
+  private RedisConfiguration redisConfiguration;
+
+  @Override
+  public List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
+      LocalTime currentTime, Double servingRadiusInKms) {
+    CircuitBreaker circuitBreaker = redisConfiguration.getCircuitBreaker();
+    if (!restaurantRedisGeoIndex.isLoaded() || !redisConfiguration.isCacheAvailable()
+        || !circuitBreaker.tryAcquirePermission()) {
+      return findAllRestaurantsInRangeFromDb(latitude, longitude, currentTime,
+          servingRadiusInKms);
+    }
+
+    long startedAt = System.nanoTime();
+    boolean redisFailed = true;
+    try {
+      List<Restaurant> restaurants = restaurantRedisGeoIndex.findRestaurantsCloseBy(latitude,
+          longitude, currentTime, servingRadiusInKms);
+      redisFailed = false;
+      return restaurants;
+    } catch (JedisException e) {
+      e.printStackTrace();
+    } finally {
+      if (redisFailed) {
+        circuitBreaker.onError();
+      } else {
+        circuitBreaker.onSuccess(System.nanoTime() - startedAt);
+      }
+    }
+    return findAllRestaurantsInRangeFromDb(latitude, longitude, currentTime, servingRadiusInKms);
+  }
+}
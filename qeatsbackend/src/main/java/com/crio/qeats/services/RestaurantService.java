@@ -9,6 +9,8 @@ package com.crio.qeats.services;
 
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
 import java.time.LocalTime;
 
 public interface RestaurantService {
@@ -62,4 +64,16 @@ public interface RestaurantService {
    */
   GetRestaurantsResponse findRestaurantsBySearchQueryMt(
       GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime);
+
+  /**
+   * Get typeahead completions for what the user has typed so far, drawn from restaurant names,
+   * cuisines and item names near the given location and ranked by how many nearby restaurants
+   * each leads to. Uses the same serving radius as the restaurant searches.
+   * @param getSuggestionsRequest valid lat/long and prefix
+   * @param currentTime current time
+   * @return GetSuggestionsResponse object containing at most the requested number of
+   *     suggestions, or an empty list if none fits the criteria.
+   */
+  GetSuggestionsResponse findSuggestions(GetSuggestionsRequest getSuggestionsRequest,
+      LocalTime currentTime);
 }
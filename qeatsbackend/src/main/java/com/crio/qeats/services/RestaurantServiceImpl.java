@@ -7,70 +7,92 @@
 
 package com.crio.qeats.services;
 
+import com.crio.qeats.cache.SearchResultCache;
+import com.crio.qeats.configs.ExecutorConfiguration;
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.SearchMatch;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.index.RestaurantSearchIndex;
+import com.crio.qeats.index.SuggestionIndex;
 import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
 import com.crio.qeats.taskexecutor.TaskFindRestaurantsByAttributes;
 import com.crio.qeats.taskexecutor.TaskFindRestaurantsByItemAttributes;
 import com.crio.qeats.taskexecutor.TaskFindRestaurantsByItemName;
 import com.crio.qeats.taskexecutor.TaskFindRestaurantsByName;
+import com.crio.qeats.utils.GeoUtils;
+import com.crio.qeats.utils.RestaurantCursor;
+import com.crio.qeats.utils.SearchCursor;
 
 import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.core.task.TaskExecutor;
-import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 @Log4j2
 public class RestaurantServiceImpl implements RestaurantService {
 
-  private final Double peakHoursServingRadiusInKms = 3.0;
-  private final Double normalHoursServingRadiusInKms = 5.0;
+  private static final String FACET_SEARCH = "facet";
   @Autowired
   private RestaurantRepositoryService restaurantRepositoryService;
-  
-  private ThreadPoolTaskExecutor threadPool = new ThreadPoolTaskExecutor();
-  
-  
+
+  // Left unset when the service is created outside Spring, searches then go uncached.
+  @Autowired(required = false)
+  private SearchResultCache searchResultCache;
+
+  // Only present with qeats.search.mode=index, searches are then answered from memory.
+  @Autowired(required = false)
+  private RestaurantSearchIndex restaurantSearchIndex;
+
+  // Absent unless qeats.suggest.enabled=true, there are no suggestions then.
+  @Autowired(required = false)
+  private SuggestionIndex suggestionIndex;
+
+  // Left unset when the service is created outside Spring, the lookups then run one by one.
+  @Autowired(required = false)
+  @Qualifier(ExecutorConfiguration.SEARCH_EXECUTOR)
+  private Executor searchExecutor;
+
+  @Value("${qeats.search.deadline-ms:200}")
+  private long searchDeadlineInMs = 200;
+
+  // With "facet" the four sources are answered by one aggregation in the repository service.
+  @Value("${qeats.search.mode:mongo}")
+  private String searchMode = "mongo";
+
   @Override
   public GetRestaurantsResponse findAllRestaurantsCloseBy(
       GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime) {
 
-    //For peak hours: 8AM - 10AM, 1PM-2PM, 7PM-9PM     
+    List<Restaurant> restaurant = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(getRestaurantsRequest.getLatitude(),
+        getRestaurantsRequest.getLongitude(), currentTime, servingRadiusAt(currentTime));
 
-    int hour = currentTime.getHour();
-    int min = currentTime.getMinute();
-
-    List<Restaurant> restaurant =  new ArrayList<>();
-
-    if (hour >= 8 && hour < 10 || hour == 10 && min == 0 || hour >= 13 && hour < 14
-        || hour == 14 && min == 0 || hour >= 19 && hour < 21 || hour == 21 && min == 0) {
-      restaurant = restaurantRepositoryService
-      .findAllRestaurantsCloseBy(getRestaurantsRequest.getLatitude(),
-      getRestaurantsRequest.getLongitude(),currentTime,peakHoursServingRadiusInKms);
-    } else {
-      restaurant = restaurantRepositoryService
-      .findAllRestaurantsCloseBy(getRestaurantsRequest.getLatitude(),
-      getRestaurantsRequest.getLongitude(),currentTime,normalHoursServingRadiusInKms);
+    if (getRestaurantsRequest.getLimit() != null) {
+      return findNearestPage(getRestaurantsRequest, restaurant);
     }
-  
+
     GetRestaurantsResponse restaurantsResponse = new GetRestaurantsResponse(restaurant);
      
     // System.out.println("Res Called" + restaurantsResponse);
@@ -79,6 +101,77 @@ public class RestaurantServiceImpl implements RestaurantService {
 
   }
 
+  // Peak hours are 8AM - 10AM, 1PM - 2PM and 7PM - 9PM, the closing minute included.
+  private static double servingRadiusAt(LocalTime currentTime) {
+    int hour = currentTime.getHour();
+    int min = currentTime.getMinute();
+    if (hour >= 8 && hour < 10 || hour == 10 && min == 0 || hour >= 13 && hour < 14
+        || hour == 14 && min == 0 || hour >= 19 && hour < 21 || hour == 21 && min == 0) {
+      return GlobalConstants.PEAK_HOURS_SERVING_RADIUS_IN_KMS;
+    }
+    return GlobalConstants.NORMAL_HOURS_SERVING_RADIUS_IN_KMS;
+  }
+
+  /**
+   * Picks the next page of the nearest restaurants after the request cursor.
+   * Only limit + 1 candidates are kept in a max-heap while scanning, so a page costs
+   * O(n log k) instead of sorting every restaurant in range; the extra candidate tells whether
+   * there is a next page.
+   */
+  private GetRestaurantsResponse findNearestPage(GetRestaurantsRequest getRestaurantsRequest,
+      List<Restaurant> restaurants) {
+    int limit = getRestaurantsRequest.getLimit();
+    RestaurantCursor after = getRestaurantsRequest.getCursor() == null
+        ? null : RestaurantCursor.decode(getRestaurantsRequest.getCursor());
+
+    PriorityQueue<RankedRestaurant> nearest = new PriorityQueue<>(limit + 1,
+        Collections.reverseOrder());
+    for (Restaurant restaurant : restaurants) {
+      RestaurantCursor position = new RestaurantCursor(
+          GeoUtils.findDistanceInKm(getRestaurantsRequest.getLatitude(),
+              getRestaurantsRequest.getLongitude(), restaurant.getLatitude(),
+              restaurant.getLongitude()), restaurant.getRestaurantId());
+      if (after != null && position.compareTo(after) <= 0) {
+        continue;
+      }
+      if (nearest.size() <= limit) {
+        nearest.add(new RankedRestaurant(position, restaurant));
+      } else if (position.compareTo(nearest.peek().position) < 0) {
+        nearest.poll();
+        nearest.add(new RankedRestaurant(position, restaurant));
+      }
+    }
+
+    boolean hasMore = nearest.size() > limit;
+    if (hasMore) {
+      nearest.poll();
+    }
+
+    Restaurant[] page = new Restaurant[nearest.size()];
+    RestaurantCursor last = hasMore ? nearest.peek().position : null;
+    for (int i = page.length - 1; i >= 0; i--) {
+      page[i] = nearest.poll().restaurant;
+    }
+
+    return new GetRestaurantsResponse(Arrays.asList(page), last == null ? null : last.encode());
+  }
+
+  private static final class RankedRestaurant implements Comparable<RankedRestaurant> {
+
+    private final RestaurantCursor position;
+    private final Restaurant restaurant;
+
+    RankedRestaurant(RestaurantCursor position, Restaurant restaurant) {
+      this.position = position;
+      this.restaurant = restaurant;
+    }
+
+    @Override
+    public int compareTo(RankedRestaurant other) {
+      return position.compareTo(other.position);
+    }
+  }
+
 
   // TODO: CRIO_TASK_MODULE_RESTAURANTSEARCH
   // Implement findRestaurantsBySearchQuery. The request object has the search string.
@@ -97,8 +190,6 @@ public class RestaurantServiceImpl implements RestaurantService {
     Double lat = getRestaurantsRequest.getLatitude();
     Double lon = getRestaurantsRequest.getLongitude();
     String str = getRestaurantsRequest.getSearchFor();
-    int hour = currentTime.getHour();
-    int min = currentTime.getMinute();
 
     List<Restaurant> restaurant = new ArrayList<>();
     
@@ -106,47 +197,158 @@ public class RestaurantServiceImpl implements RestaurantService {
       return new GetRestaurantsResponse(restaurant);
     } 
 
-    TreeSet<Restaurant> set = new TreeSet<>((a,b) -> a.getRestaurantId()
-        .compareTo(b.getRestaurantId()));
-        
-    if (hour >= 8 && hour < 10 || hour == 10 && min == 0 || hour >= 13 && hour < 14
-        || hour == 14 && min == 0 || hour >= 19 && hour < 21 || hour == 21 && min == 0) {
+    double servingRadiusInKms = servingRadiusAt(currentTime);
+
+    Integer limit = getRestaurantsRequest.getLimit();
+    int offset = offsetOf(getRestaurantsRequest);
+    Integer wanted = wantedFor(offset, limit);
+    if (restaurantSearchIndex != null) {
+      SearchResultMerger merger = new SearchResultMerger(wanted);
+      merger.add(restaurantSearchIndex.findRestaurants(lat, lon, str, currentTime,
+          servingRadiusInKms));
+      restaurant.addAll(merger.getRestaurants());
+    } else if (searchResultCache != null) {
+      // The cache searches for the wanted results only, and again for more when its filtering
+      // per request leaves too few of them.
+      restaurant.addAll(searchResultCache.find(lat, lon, str, currentTime,
+          servingRadiusInKms, wanted, (latitude, longitude, searchFor, radiusInKms, searchLimit) ->
+              findRestaurantsMatching(latitude, longitude, searchFor, currentTime, radiusInKms,
+                  searchLimit)));
+    } else {
+      restaurant.addAll(findRestaurantsMatching(lat, lon, str, currentTime, servingRadiusInKms,
+          wanted));
+    }
 
-      set.addAll(restaurantRepositoryService
-          .findRestaurantsByName(lat, lon, str, currentTime,peakHoursServingRadiusInKms));   
-      set.addAll(restaurantRepositoryService
-          .findRestaurantsByAttributes(lat, lon, str, currentTime, peakHoursServingRadiusInKms));
-      set.addAll(restaurantRepositoryService
-          .findRestaurantsByItemAttributes(lat, lon, str, currentTime,peakHoursServingRadiusInKms));
-      set.addAll(restaurantRepositoryService
-          .findRestaurantsByItemName(lat, lon, str, currentTime,peakHoursServingRadiusInKms));
-      
+    log.debug("GetRestaurantsResponse : {}", restaurant);
 
-    } else {
-      
-     
-      set.addAll(restaurantRepositoryService
-          .findRestaurantsByAttributes(lat, lon, str, currentTime, normalHoursServingRadiusInKms));
-      
-      set.addAll(restaurantRepositoryService
-          .findRestaurantsByItemAttributes(lat, lon,str,currentTime,normalHoursServingRadiusInKms));
-          
-      set.addAll(restaurantRepositoryService
-          .findRestaurantsByItemName(lat, lon, str, currentTime,normalHoursServingRadiusInKms));
+    return pageOf(restaurant, offset, limit);
+  }
+
+  // How many ranked results a search has to find to fill the page after offset, one more
+  // than the page tells whether there is a next one.
+  private static Integer wantedFor(int offset, Integer limit) {
+    return limit == null ? null : (int) Math.min((long) offset + limit + 1, Integer.MAX_VALUE);
+  }
 
-      set.addAll(restaurantRepositoryService
-          .findRestaurantsByName(lat, lon, str, currentTime,normalHoursServingRadiusInKms));
-      
+  private static int offsetOf(GetRestaurantsRequest getRestaurantsRequest) {
+    SearchCursor after = getRestaurantsRequest.getCursor() == null
+        ? null : SearchCursor.decode(getRestaurantsRequest.getCursor());
+    return after == null ? 0 : after.getOffset();
+  }
+
+  // Cuts the page after offset out of the ranked results, all of them without a limit.
+  private static GetRestaurantsResponse pageOf(List<Restaurant> restaurants, int offset,
+      Integer limit) {
+    if (limit == null) {
+      return new GetRestaurantsResponse(restaurants);
     }
+    int end = (int) Math.min((long) offset + limit, restaurants.size());
+    List<Restaurant> page = offset >= end
+        ? new ArrayList<>() : new ArrayList<>(restaurants.subList(offset, end));
+    return new GetRestaurantsResponse(page,
+        restaurants.size() > end ? new SearchCursor(end).encode() : null);
+  }
 
-    restaurant.addAll(set);    
+  /**
+   * Combines the matches by name, attributes, item name and item attributes in that order,
+   * each restaurant once at its best ranked position. Sources are no longer pulled once limit
+   * restaurants are found. In facet mode the repository service answers all four in one query.
+   * Otherwise, with the search executor, the four lookups run concurrently and are merged as
+   * they complete; lookups not needed any more are cancelled.
+   */
+  private List<Restaurant> findRestaurantsMatching(double lat, double lon, String str,
+      LocalTime currentTime, double servingRadiusInKms, Integer limit) {
+    SearchResultMerger merger = new SearchResultMerger(limit);
+
+    if (FACET_SEARCH.equals(searchMode)) {
+      List<Restaurant> matches = new ArrayList<>();
+      for (SearchMatch match : restaurantRepositoryService
+          .findRestaurantsMatching(lat, lon, str, currentTime, servingRadiusInKms)) {
+        matches.add(match.getRestaurant());
+      }
+      merger.add(matches);
+      return merger.getRestaurants();
+    }
 
-    System.out.println("GetRestaurantsResponse : " + restaurant);
+    if (searchExecutor == null) {
+      if (!merger.add(restaurantRepositoryService
+          .findRestaurantsByName(lat, lon, str, currentTime, servingRadiusInKms))
+          && !merger.add(restaurantRepositoryService
+          .findRestaurantsByAttributes(lat, lon, str, currentTime, servingRadiusInKms))
+          && !merger.add(restaurantRepositoryService
+          .findRestaurantsByItemName(lat, lon, str, currentTime, servingRadiusInKms))) {
+        merger.add(restaurantRepositoryService
+            .findRestaurantsByItemAttributes(lat, lon, str, currentTime, servingRadiusInKms));
+      }
+      return merger.getRestaurants();
+    }
 
-    GetRestaurantsResponse restaurantsResponse = new GetRestaurantsResponse(restaurant);  
+    List<Future<List<Restaurant>>> lookups =
+        submitLookups(lat, lon, str, currentTime, servingRadiusInKms, true);
+    try {
+      for (Future<List<Restaurant>> lookup : lookups) {
+        if (merger.isFull()) {
+          break;
+        }
+        merger.add(join(lookup));
+      }
+    } finally {
+      // Lookups not needed any more, or left over after one failed, stop here rather than keep
+      // a search executor thread busy.
+      for (Future<List<Restaurant>> lookup : lookups) {
+        lookup.cancel(true);
+      }
+    }
+    return merger.getRestaurants();
+  }
 
-    return restaurantsResponse;
-     
+  // Runs the four lookups of a search on the search executor. Cancelling a returned lookup
+  // interrupts the thread running it. A lookup the executor rejects runs on the calling thread
+  // when runRejected is set, so a saturated pool slows a search down but never fails it;
+  // otherwise it is returned cancelled.
+  private List<Future<List<Restaurant>>> submitLookups(double lat, double lon, String str,
+      LocalTime currentTime, double servingRadiusInKms, boolean runRejected) {
+    List<Callable<List<Restaurant>>> tasks = Arrays.asList(
+        new TaskFindRestaurantsByName(lat, lon, str, currentTime, servingRadiusInKms,
+            restaurantRepositoryService),
+        new TaskFindRestaurantsByAttributes(lat, lon, str, currentTime, servingRadiusInKms,
+            restaurantRepositoryService),
+        new TaskFindRestaurantsByItemName(lat, lon, str, currentTime, servingRadiusInKms,
+            restaurantRepositoryService),
+        new TaskFindRestaurantsByItemAttributes(lat, lon, str, currentTime,
+            servingRadiusInKms, restaurantRepositoryService));
+
+    List<Future<List<Restaurant>>> lookups = new ArrayList<>(tasks.size());
+    for (Callable<List<Restaurant>> task : tasks) {
+      FutureTask<List<Restaurant>> lookup = new FutureTask<>(task);
+      try {
+        searchExecutor.execute(lookup);
+      } catch (RejectedExecutionException e) {
+        if (runRejected) {
+          log.warn("Search executor is saturated, running a lookup on the request thread");
+          lookup.run();
+        } else {
+          log.warn("Search executor is saturated, skipping a lookup");
+          lookup.cancel(false);
+        }
+      }
+      lookups.add(lookup);
+    }
+    return lookups;
+  }
+
+  private static List<Restaurant> join(Future<List<Restaurant>> lookup) {
+    try {
+      return lookup.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new CompletionException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CompletionException(e);
+    }
   }
 
 
@@ -154,77 +356,86 @@ public class RestaurantServiceImpl implements RestaurantService {
   // Implement multi-threaded version of RestaurantSearch.
   // Implement variant of findRestaurantsBySearchQuery which is at least 1.5x time faster than
   // findRestaurantsBySearchQuery.
+
+  /**
+   * Runs the four lookups concurrently under a single deadline for the whole request,
+   * qeats.search.deadline-ms. Lookups that have not finished by then are cancelled, which
+   * interrupts their threads, and the response carries whatever the others found, merged in
+   * rank order; failed lookups and lookups the saturated executor rejects are skipped the
+   * same way rather than run past the deadline on the request thread.
+   * Results are paged with the request cursor like those of findRestaurantsBySearchQuery.
+   * Searches answered from the in-memory search index or by a single facet aggregation have
+   * nothing to run concurrently.
+   */
   @Override
   public GetRestaurantsResponse findRestaurantsBySearchQueryMt(
       GetRestaurantsRequest getRestaurantsRequest, LocalTime currentTime) {
-    
-    threadPool.setCorePoolSize(5);
-    threadPool.setMaxPoolSize(10);
-    threadPool.afterPropertiesSet();
+    if (restaurantSearchIndex != null || FACET_SEARCH.equals(searchMode)
+        || searchExecutor == null) {
+      return findRestaurantsBySearchQuery(getRestaurantsRequest, currentTime);
+    }
 
-    System.out.println("findRestaurantsBySearchQueryMt : ");    
     Double lat = getRestaurantsRequest.getLatitude();
     Double lon = getRestaurantsRequest.getLongitude();
     String str = getRestaurantsRequest.getSearchFor();
-    int hour = currentTime.getHour();
-    int min = currentTime.getMinute();
-    
-    List<Restaurant> restaurant = new ArrayList<>();
 
-    List<Future<List<Restaurant>>> listOfFutureRestaurant = new ArrayList<>();
+    List<Restaurant> restaurant = new ArrayList<>();
 
     if (str.isEmpty()) {
       return new GetRestaurantsResponse(restaurant);
-    } 
-
-    TreeSet<Restaurant> set = new TreeSet<>((a,b) -> a.getRestaurantId()
-        .compareTo(b.getRestaurantId()));
-
-    /*
-    if (hour >= 8 && hour < 10 || hour == 10 && min == 0 || hour >= 13 && hour < 14
-        || hour == 14 && min == 0 || hour >= 19 && hour < 21 || hour == 21 && min == 0) {
-
-      listOfFutureRestaurant.add(threadPool.submit(new TaskFindRestaurantsByAttributes(lat,
-          lon,str,currentTime,peakHoursServingRadiusInKms,restaurantRepositoryService)));
-
-      listOfFutureRestaurant.add(threadPool.submit(new TaskFindRestaurantsByItemAttributes(lat,
-          lon,str,currentTime,peakHoursServingRadiusInKms)));    
-      listOfFutureRestaurant.add(threadPool.submit(new TaskFindRestaurantsByItemName(lat,
-          lon,str,currentTime,peakHoursServingRadiusInKms)));
-      listOfFutureRestaurant.add(threadPool.submit(new TaskFindRestaurantsByName(lat,
-          lon,str,currentTime,peakHoursServingRadiusInKms)));
-
-    } else {
-      listOfFutureRestaurant.add(threadPool.submit(new TaskFindRestaurantsByAttributes(lat,
-          lon,str,currentTime,normalHoursServingRadiusInKms,restaurantRepositoryService)));
-          
-      listOfFutureRestaurant.add(threadPool.submit(new TaskFindRestaurantsByItemAttributes(lat,
-          lon,str,currentTime,normalHoursServingRadiusInKms)));    
-      listOfFutureRestaurant.add(threadPool.submit(new TaskFindRestaurantsByItemName(lat,
-          lon,str,currentTime,normalHoursServingRadiusInKms)));
-      listOfFutureRestaurant.add(threadPool.submit(new TaskFindRestaurantsByName(lat,
-          lon,str,currentTime,normalHoursServingRadiusInKms)));
-    } 
+    }
 
-    for (Future<List<Restaurant>> l:listOfFutureRestaurant) {
-    
-      try {
-        set.addAll(l.get(100, TimeUnit.MILLISECONDS));
-      
-      } catch (InterruptedException | ExecutionException | TimeoutException e) {
-        e.printStackTrace();
+    double servingRadiusInKms = servingRadiusAt(currentTime);
+
+    Integer limit = getRestaurantsRequest.getLimit();
+    int offset = offsetOf(getRestaurantsRequest);
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(searchDeadlineInMs);
+    SearchResultMerger merger = new SearchResultMerger(wantedFor(offset, limit));
+
+    List<Future<List<Restaurant>>> lookups =
+        submitLookups(lat, lon, str, currentTime, servingRadiusInKms, false);
+    try {
+      for (Future<List<Restaurant>> lookup : lookups) {
+        if (merger.isFull() || lookup.isCancelled()) {
+          continue;
+        }
+        try {
+          merger.add(lookup.get(Math.max(0, deadline - System.nanoTime()),
+              TimeUnit.NANOSECONDS));
+        } catch (TimeoutException e) {
+          log.warn("Search lookup for \"{}\" missed the {} ms deadline", str,
+              searchDeadlineInMs);
+        } catch (ExecutionException e) {
+          e.printStackTrace();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    } finally {
+      // Nothing keeps running once the response is decided.
+      for (Future<List<Restaurant>> lookup : lookups) {
+        lookup.cancel(true);
       }
- 
     }
-    restaurant.addAll(set);    
+    restaurant.addAll(merger.getRestaurants());
+
+    return pageOf(restaurant, offset, limit);
+  }
 
-    */
-    System.out.println("findRestaurantsBySearchQueryMt : " + restaurant);
+  @Override
+  public GetSuggestionsResponse findSuggestions(GetSuggestionsRequest getSuggestionsRequest,
+      LocalTime currentTime) {
+    if (suggestionIndex == null) {
+      return new GetSuggestionsResponse(new ArrayList<>());
+    }
 
-    GetRestaurantsResponse restaurantsResponse = new GetRestaurantsResponse(restaurant);  
+    double servingRadiusInKms = servingRadiusAt(currentTime);
 
-    return restaurantsResponse;
+    Integer limit = getSuggestionsRequest.getLimit();
+    return new GetSuggestionsResponse(suggestionIndex.findSuggestions(
+        getSuggestionsRequest.getLatitude(), getSuggestionsRequest.getLongitude(),
+        getSuggestionsRequest.getPrefix(),
+        limit == null ? GetSuggestionsRequest.DEFAULT_LIMIT : limit, servingRadiusInKms));
   }
 }
-
-
@@ -0,0 +1,58 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.dto.Restaurant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Merges the results of the search sources in the order the search contract ranks them: name
+ * matches first, then attributes, item names and item attributes.
+ * Sources are added in that order and each restaurant keeps its first, best ranked, position.
+ * Once limit restaurants are collected the merger is full, callers stop pulling sources then.
+ */
+final class SearchResultMerger {
+
+  private final int limit;
+  private final List<Restaurant> restaurants = new ArrayList<>();
+  private final Set<String> seen = new HashSet<>();
+
+  /**
+   * @param limit most restaurants to collect, null for all of them
+   */
+  SearchResultMerger(Integer limit) {
+    this.limit = limit == null ? Integer.MAX_VALUE : limit;
+  }
+
+  /**
+   * Appends the restaurants of the next source that earlier sources did not have, up to the
+   * limit.
+   * @return whether the merger is full
+   */
+  boolean add(List<Restaurant> source) {
+    for (Restaurant restaurant : source) {
+      if (isFull()) {
+        break;
+      }
+      if (seen.add(restaurant.getRestaurantId())) {
+        restaurants.add(restaurant);
+      }
+    }
+    return isFull();
+  }
+
+  boolean isFull() {
+    return restaurants.size() >= limit;
+  }
+
+  List<Restaurant> getRestaurants() {
+    return restaurants;
+  }
+}
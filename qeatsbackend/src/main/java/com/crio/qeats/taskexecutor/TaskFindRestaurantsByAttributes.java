@@ -1,15 +1,12 @@
 package com.crio.qeats.taskexecutor;
 
 import java.time.LocalTime;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 
 import com.crio.qeats.dto.Restaurant;
 import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
 
-import org.springframework.beans.factory.annotation.Autowired;
-
 public class TaskFindRestaurantsByAttributes implements Callable<List<Restaurant>> {
 
   private Double latitude;
@@ -29,7 +26,7 @@ public class TaskFindRestaurantsByAttributes implements Callable<List<Restaurant
     this.searchString = searchString;
     this.currentTime =  currentTime;
     this.servingRadiusInKms = servingRadiusInKms;
-    this.restaurantRepositoryService=restaurantRepositoryService;
+    this.restaurantRepositoryService = restaurantRepositoryService;
   }
   
   public List<Restaurant> call() {
@@ -0,0 +1,197 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Count based circuit breaker guarding calls to a dependency such as Redis.
+ * While CLOSED every call is allowed and its outcome recorded over the last windowSize calls.
+ * Once at least minimumCalls are recorded and the share of failed or slow calls reaches its
+ * threshold the breaker goes OPEN and rejects calls, so callers take their fallback right away
+ * instead of waiting on the dependency. After openDurationInMillis it goes HALF_OPEN and lets a
+ * few trial calls through: if all of them succeed quickly it closes again, otherwise it opens.
+ *
+ * <p>Every permitted call must report exactly one outcome, onSuccess or onError.</p>
+ */
+public class CircuitBreaker {
+
+  public enum State { CLOSED, OPEN, HALF_OPEN }
+
+  private final String name;
+  private final int windowSize;
+  private final int minimumCalls;
+  private final double failureRateThreshold;
+  private final long slowCallThresholdInNanos;
+  private final double slowCallRateThreshold;
+  private final long openDurationInMillis;
+  private final int halfOpenCalls;
+  private final LongSupplier clock;
+
+  private State state = State.CLOSED;
+  private final boolean[] failedCalls;
+  private final boolean[] slowCalls;
+  private int recordedCalls;
+  private int nextCall;
+  private int failedCallCount;
+  private int slowCallCount;
+  private long openedAt;
+  private int halfOpenPermits;
+  private int halfOpenSuccesses;
+  private long rejectedCalls;
+
+  /**
+   * Creates a closed breaker, rates are fractions between 0 and 1.
+   */
+  public CircuitBreaker(String name, int windowSize, int minimumCalls,
+      double failureRateThreshold, long slowCallThresholdInMillis, double slowCallRateThreshold,
+      long openDurationInMillis, int halfOpenCalls) {
+    this(name, windowSize, minimumCalls, failureRateThreshold, slowCallThresholdInMillis,
+        slowCallRateThreshold, openDurationInMillis, halfOpenCalls, System::currentTimeMillis);
+  }
+
+  CircuitBreaker(String name, int windowSize, int minimumCalls,
+      double failureRateThreshold, long slowCallThresholdInMillis, double slowCallRateThreshold,
+      long openDurationInMillis, int halfOpenCalls, LongSupplier clock) {
+    this.name = name;
+    this.windowSize = windowSize;
+    this.minimumCalls = Math.min(minimumCalls, windowSize);
+    this.failureRateThreshold = failureRateThreshold;
+    this.slowCallThresholdInNanos = slowCallThresholdInMillis * 1_000_000;
+    this.slowCallRateThreshold = slowCallRateThreshold;
+    this.openDurationInMillis = openDurationInMillis;
+    this.halfOpenCalls = halfOpenCalls;
+    this.clock = clock;
+    this.failedCalls = new boolean[windowSize];
+    this.slowCalls = new boolean[windowSize];
+  }
+
+  /**
+   * Asks whether a call may go ahead. When this returns false the caller must not call the
+   * dependency and must not report an outcome.
+   */
+  public synchronized boolean tryAcquirePermission() {
+    if (state == State.OPEN && clock.getAsLong() - openedAt >= openDurationInMillis) {
+      state = State.HALF_OPEN;
+      halfOpenPermits = halfOpenCalls;
+      halfOpenSuccesses = 0;
+    }
+
+    if (state == State.CLOSED) {
+      return true;
+    }
+    if (state == State.HALF_OPEN && halfOpenPermits > 0) {
+      halfOpenPermits--;
+      return true;
+    }
+    rejectedCalls++;
+    return false;
+  }
+
+  /**
+   * Asks whether a call that could just as well be skipped, such as background work, may go
+   * ahead. These calls are only let through while the breaker is closed, so that they never
+   * take one of the trial calls of the half-open state. Their outcomes are reported with
+   * onBackgroundSuccess and onBackgroundError.
+   */
+  public synchronized boolean tryAcquireBackgroundPermission() {
+    return state == State.CLOSED;
+  }
+
+  public synchronized void onSuccess(long durationInNanos) {
+    record(false, durationInNanos >= slowCallThresholdInNanos);
+  }
+
+  public synchronized void onError() {
+    record(true, false);
+  }
+
+  // Background outcomes only count towards the closed state they were permitted in, a trial
+  // of the half-open state is decided by the calls it let through.
+  public synchronized void onBackgroundSuccess(long durationInNanos) {
+    if (state == State.CLOSED) {
+      onSuccess(durationInNanos);
+    }
+  }
+
+  public synchronized void onBackgroundError() {
+    if (state == State.CLOSED) {
+      onError();
+    }
+  }
+
+  private void record(boolean failed, boolean slow) {
+    if (state == State.HALF_OPEN) {
+      if (failed || slow) {
+        open();
+      } else if (++halfOpenSuccesses >= halfOpenCalls) {
+        close();
+      }
+      return;
+    }
+    if (state == State.OPEN) {
+      // A call permitted before the breaker opened, its outcome no longer matters.
+      return;
+    }
+
+    if (recordedCalls == windowSize) {
+      failedCallCount -= failedCalls[nextCall] ? 1 : 0;
+      slowCallCount -= slowCalls[nextCall] ? 1 : 0;
+    } else {
+      recordedCalls++;
+    }
+    failedCalls[nextCall] = failed;
+    slowCalls[nextCall] = slow;
+    failedCallCount += failed ? 1 : 0;
+    slowCallCount += slow ? 1 : 0;
+    nextCall = (nextCall + 1) % windowSize;
+
+    if (recordedCalls >= minimumCalls
+        && (failedCallCount >= failureRateThreshold * recordedCalls
+        || slowCallCount >= slowCallRateThreshold * recordedCalls)) {
+      open();
+    }
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = clock.getAsLong();
+    resetWindow();
+  }
+
+  private void close() {
+    state = State.CLOSED;
+    resetWindow();
+  }
+
+  private void resetWindow() {
+    recordedCalls = 0;
+    nextCall = 0;
+    failedCallCount = 0;
+    slowCallCount = 0;
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  /**
+   * Current state and window counters, for monitoring.
+   */
+  public synchronized Map<String, Object> getStatus() {
+    Map<String, Object> status = new LinkedHashMap<>();
+    status.put("name", name);
+    status.put("state", state);
+    status.put("recordedCalls", recordedCalls);
+    status.put("failedCalls", failedCallCount);
+    status.put("slowCalls", slowCallCount);
+    status.put("rejectedCalls", rejectedCalls);
+    return status;
+  }
+}
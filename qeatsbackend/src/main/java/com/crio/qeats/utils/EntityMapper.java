@@ -0,0 +1,49 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Maps database entities to the DTOs served by the API, field by field.
+ * Stateless and thread safe, unlike going through a new ModelMapper per entity there is no
+ * reflection or type map building on each call. The results match what ModelMapper produced,
+ * with attribute lists copied.
+ *
+ * <p>There is no item converter: menus embed {@link com.crio.qeats.dto.Item} DTOs as stored,
+ * and the item lookups read only ids and attributes from ItemEntity, never an Item.</p>
+ */
+public final class EntityMapper {
+
+  private EntityMapper() { /* utility */ }
+
+  public static Restaurant toRestaurant(RestaurantEntity restaurantEntity) {
+    return new Restaurant(restaurantEntity.getRestaurantId(), restaurantEntity.getName(),
+        restaurantEntity.getCity(), restaurantEntity.getImageUrl(),
+        restaurantEntity.getLatitude(), restaurantEntity.getLongitude(),
+        restaurantEntity.getOpensAt(), restaurantEntity.getClosesAt(),
+        copyOf(restaurantEntity.getAttributes()));
+  }
+
+  /**
+   * Copy of a restaurant that shares no mutable state with it, for handing out restaurants
+   * held in memory.
+   */
+  public static Restaurant copyOf(Restaurant restaurant) {
+    return new Restaurant(restaurant.getRestaurantId(), restaurant.getName(),
+        restaurant.getCity(), restaurant.getImageUrl(), restaurant.getLatitude(),
+        restaurant.getLongitude(), restaurant.getOpensAt(), restaurant.getClosesAt(),
+        copyOf(restaurant.getAttributes()));
+  }
+
+  private static List<String> copyOf(List<String> values) {
+    return values == null ? null : new ArrayList<>(values);
+  }
+}
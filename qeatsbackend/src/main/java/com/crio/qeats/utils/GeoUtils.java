@@ -7,6 +7,10 @@
 
 package com.crio.qeats.utils;
 
+import ch.hsr.geohash.BoundingBox;
+import ch.hsr.geohash.GeoHash;
+import java.util.ArrayList;
+import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
@@ -14,42 +18,168 @@ import lombok.Data;
 @AllArgsConstructor
 public class GeoUtils {
 
+  private static final double EARTH_RADIUS_IN_KMS = 6371;
+
+  // Upper bound on the cells returned by findGeoHashesCovering, guards against a too fine
+  // precision or a radius that wraps around the antimeridian.
+  private static final int MAX_COVERING_CELLS = 1024;
+
   public static double findDistanceInKm(double srcLatitude, double srcLongitude,
       double dstLatitude, double dstLongitude) {
-    return distance(srcLatitude, dstLatitude, srcLongitude, dstLongitude, 0, 0);
+    return distance(srcLatitude, dstLatitude, srcLongitude, dstLongitude);
+  }
+
+  /**
+   * Finds the points within radiusInKms of the given location, same as calling
+   * {@link #findDistanceInKm} for each point but for a whole column of points at once.
+   * Points outside the bounding box of the circle are rejected without any trigonometry, the
+   * rest are compared on the haversine term so no atan2 or sqrt is needed.
+   *
+   * @param latitude location to measure from
+   * @param longitude location to measure from
+   * @param radiusInKms points strictly closer than this match
+   * @param latitudes latitudes of the points
+   * @param longitudes longitudes of the points
+   * @param count number of points, read from the start of both arrays
+   * @param matches receives the indices of the matching points, ascending, needs count slots
+   * @return number of indices written to matches
+   */
+  public static int findIndicesWithinRadius(double latitude, double longitude,
+      double radiusInKms, double[] latitudes, double[] longitudes, int count, int[] matches) {
+    double angularRadius = radiusInKms / EARTH_RADIUS_IN_KMS;
+    double latitudeDelta = Math.toDegrees(angularRadius);
+    double longitudeDelta = longitudeDeltaInDegrees(latitude, angularRadius);
+
+    double cosLatitude = Math.cos(Math.toRadians(latitude));
+    double sinHalfRadius = Math.sin(angularRadius / 2);
+    double maxHaversine = sinHalfRadius * sinHalfRadius;
+
+    int matchCount = 0;
+    for (int i = 0; i < count; i++) {
+      double latitudeDistance = latitudes[i] - latitude;
+      if (latitudeDistance > latitudeDelta || latitudeDistance < -latitudeDelta) {
+        continue;
+      }
+      double longitudeDistance = longitudes[i] - longitude;
+      if (longitudeDistance > 180) {
+        longitudeDistance -= 360;
+      } else if (longitudeDistance < -180) {
+        longitudeDistance += 360;
+      }
+      if (longitudeDistance > longitudeDelta || longitudeDistance < -longitudeDelta) {
+        continue;
+      }
+
+      double sinHalfLatitude = Math.sin(Math.toRadians(latitudeDistance) / 2);
+      double sinHalfLongitude = Math.sin(Math.toRadians(longitudeDistance) / 2);
+      double haversine = sinHalfLatitude * sinHalfLatitude
+          + cosLatitude * Math.cos(Math.toRadians(latitudes[i]))
+          * sinHalfLongitude * sinHalfLongitude;
+      if (haversine < maxHaversine) {
+        matches[matchCount++] = i;
+      }
+    }
+    return matchCount;
+  }
+
+  /**
+   * Finds the geohash cells of the given precision that overlap the bounding box of a circle.
+   * Every point within radiusInKms of the centre lies in one of the returned cells.
+   *
+   * @param latitude centre of the circle
+   * @param longitude centre of the circle
+   * @param radiusInKms radius of the circle
+   * @param precision character precision of the returned cells
+   * @return base32 geohashes of the covering cells, ordered south to north, west to east
+   */
+  public static List<String> findGeoHashesCovering(double latitude, double longitude,
+      double radiusInKms, int precision) {
+    double angularRadius = radiusInKms / EARTH_RADIUS_IN_KMS;
+    double latitudeDelta = Math.toDegrees(angularRadius);
+    double longitudeDelta = longitudeDeltaInDegrees(latitude, angularRadius);
+
+    double north = Math.min(latitude + latitudeDelta, 90);
+    double east = Math.min(longitude + longitudeDelta, 180);
+
+    List<String> cells = new ArrayList<>();
+    GeoHash rowStart = GeoHash.withCharacterPrecision(Math.max(latitude - latitudeDelta, -90),
+        Math.max(longitude - longitudeDelta, -180), precision);
+
+    while (cells.size() < MAX_COVERING_CELLS) {
+      GeoHash cell = rowStart;
+      BoundingBox box = cell.getBoundingBox();
+      while (cells.size() < MAX_COVERING_CELLS) {
+        cells.add(cell.toBase32());
+        if (box.getEastLongitude() >= east) {
+          break;
+        }
+        cell = cell.getEasternNeighbour();
+        box = cell.getBoundingBox();
+      }
+      if (rowStart.getBoundingBox().getNorthLatitude() >= north) {
+        break;
+      }
+      rowStart = rowStart.getNorthernNeighbour();
+    }
+    return cells;
   }
 
   /**
-   * THIS IS BORROWED CODE. Calculate distance between two points in latitude and longitude taking
-   * into account height difference. If you are not interested in height difference pass 0.0. Uses
-   * Haversine method as its base.
+   * Finds the bounding box of a circle, for filtering points by plain range comparisons.
+   * A box that would cross the antimeridian covers all longitudes instead.
    *
-   * <p>lat1, lon1 Start point lat2, lon2 End point el1 Start altitude in meters el2 End altitude
-   * in
-   * meters
+   * @return minimum latitude, maximum latitude, minimum longitude and maximum longitude
+   */
+  public static double[] findBoundingBox(double latitude, double longitude,
+      double radiusInKms) {
+    double angularRadius = radiusInKms / EARTH_RADIUS_IN_KMS;
+    double latitudeDelta = Math.toDegrees(angularRadius);
+    double longitudeDelta = longitudeDeltaInDegrees(latitude, angularRadius);
+
+    double west = longitude - longitudeDelta;
+    double east = longitude + longitudeDelta;
+    if (west < -180 || east > 180) {
+      west = -180;
+      east = 180;
+    }
+    return new double[] {Math.max(latitude - latitudeDelta, -90),
+        Math.min(latitude + latitudeDelta, 90), west, east};
+  }
+
+  /**
+   * Half width, in degrees of longitude, of the bounding box of a circle on the sphere.
+   * Covers all longitudes when the circle reaches a pole.
+   */
+  private static double longitudeDeltaInDegrees(double latitude, double angularRadius) {
+    double sinDelta = Math.sin(angularRadius) / Math.cos(Math.toRadians(latitude));
+    return sinDelta >= 1 ? 180 : Math.toDegrees(Math.asin(sinDelta));
+  }
+
+  /**
+   * THIS IS BORROWED CODE. Calculate distance between two points in latitude and longitude.
+   * Uses Haversine method as its base. The height difference term of the original is dropped,
+   * all our points are at the same altitude.
+   *
+   * <p>lat1, lon1 Start point lat2, lon2 End point
    *
    * @returns Distance in Kilo Meters
    */
-  private static double distance(
-      double lat1, double lat2, double lon1, double lon2, double el1, double el2) {
+  private static double distance(double lat1, double lat2, double lon1, double lon2) {
 
-    final int R = 6371; // Radius of the earth
+    final double R = EARTH_RADIUS_IN_KMS; // Radius of the earth
 
     double latDistance = Math.toRadians(lat2 - lat1);
     double lonDistance = Math.toRadians(lon2 - lon1);
+    double sinHalfLatDistance = Math.sin(latDistance / 2);
+    double sinHalfLonDistance = Math.sin(lonDistance / 2);
     double a =
-        Math.sin(latDistance / 2) * Math.sin(latDistance / 2)
+        sinHalfLatDistance * sinHalfLatDistance
             + Math.cos(Math.toRadians(lat1))
             * Math.cos(Math.toRadians(lat2))
-            * Math.sin(lonDistance / 2)
-            * Math.sin(lonDistance / 2);
+            * sinHalfLonDistance
+            * sinHalfLonDistance;
     double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-    double distance = R * c;
-
-    double height = el1 - el2;
-
-    distance = Math.pow(distance, 2) + Math.pow(height, 2);
 
-    return Math.sqrt(distance);
+    return R * c;
   }
 }
@@ -0,0 +1,55 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.time.LocalTime;
+
+/**
+ * Opening hours as minute-of-day intervals.
+ * A restaurant is open from opensAt (inclusive) to closesAt (exclusive). When closesAt is
+ * earlier than opensAt the interval runs past midnight, e.g. 18:00 - 02:00.
+ */
+public final class OpeningHours {
+
+  public static final int MINUTES_PER_DAY = 24 * 60;
+
+  private OpeningHours() { /* utility */ }
+
+  /**
+   * Converts an "HH:mm" time to minutes since midnight without going through LocalTime.
+   * @throws java.time.format.DateTimeParseException if the text is not a valid time
+   */
+  public static int toMinuteOfDay(String time) {
+    if (time.length() == 5 && time.charAt(2) == ':') {
+      int hour = digit(time, 0) * 10 + digit(time, 1);
+      int minute = digit(time, 3) * 10 + digit(time, 4);
+      if (hour >= 0 && hour < 24 && minute >= 0 && minute < 60) {
+        return hour * 60 + minute;
+      }
+    }
+    return toMinuteOfDay(LocalTime.parse(time));
+  }
+
+  public static int toMinuteOfDay(LocalTime time) {
+    return time.getHour() * 60 + time.getMinute();
+  }
+
+  /**
+   * Checks whether the interval [opensAt, closesAt) contains the given minute of the day.
+   */
+  public static boolean isOpen(int opensAt, int closesAt, int minuteOfDay) {
+    if (opensAt <= closesAt) {
+      return opensAt <= minuteOfDay && minuteOfDay < closesAt;
+    }
+    return minuteOfDay >= opensAt || minuteOfDay < closesAt;
+  }
+
+  private static int digit(String text, int index) {
+    char c = text.charAt(index);
+    return c >= '0' && c <= '9' ? c - '0' : -100;
+  }
+}
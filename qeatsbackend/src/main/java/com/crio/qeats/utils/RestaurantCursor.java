@@ -0,0 +1,64 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.Value;
+
+/**
+ * Position of a restaurant in a nearest-first listing, ordered by distance and then by
+ * restaurantId so that restaurants at the same distance still have a stable order.
+ * Clients get it back as an opaque token and send it again to fetch the next page.
+ */
+@Value
+public class RestaurantCursor implements Comparable<RestaurantCursor> {
+
+  private static final char SEPARATOR = ':';
+
+  private final double distanceInKm;
+  private final String restaurantId;
+
+  @Override
+  public int compareTo(RestaurantCursor other) {
+    int byDistance = Double.compare(distanceInKm, other.distanceInKm);
+    return byDistance != 0 ? byDistance : restaurantId.compareTo(other.restaurantId);
+  }
+
+  /**
+   * Encodes the cursor as a url safe token. The distance is written as its raw bits so that
+   * decoding gives back exactly the same double.
+   */
+  public String encode() {
+    String plain = Long.toHexString(Double.doubleToLongBits(distanceInKm)) + SEPARATOR
+        + restaurantId;
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(plain.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a token produced by {@link #encode()}.
+   * @return the cursor, or null if the token is malformed
+   */
+  public static RestaurantCursor decode(String token) {
+    try {
+      String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int separator = plain.indexOf(SEPARATOR);
+      if (separator <= 0 || separator == plain.length() - 1) {
+        return null;
+      }
+      double distanceInKm = Double.longBitsToDouble(
+          Long.parseUnsignedLong(plain.substring(0, separator), 16));
+      if (Double.isNaN(distanceInKm) || distanceInKm < 0) {
+        return null;
+      }
+      return new RestaurantCursor(distanceInKm, plain.substring(separator + 1));
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
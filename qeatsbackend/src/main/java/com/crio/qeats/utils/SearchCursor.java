@@ -0,0 +1,47 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import lombok.Value;
+
+/**
+ * Position in search results, which are ranked by how a restaurant matched rather than by
+ * distance. The results are recomputed for every page, so a page starts after the number of
+ * results already returned; a restaurant opening or closing in between may shift the rest.
+ * Clients get it back as an opaque token and send it again to fetch the next page.
+ */
+@Value
+public class SearchCursor {
+
+  private static final String PREFIX = "search:";
+
+  private final int offset;
+
+  public String encode() {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString((PREFIX + offset).getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Decodes a token produced by {@link #encode()}.
+   * @return the cursor, or null if the token is malformed or a cursor of nearby listings
+   */
+  public static SearchCursor decode(String token) {
+    try {
+      String plain = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      if (!plain.startsWith(PREFIX)) {
+        return null;
+      }
+      int offset = Integer.parseInt(plain.substring(PREFIX.length()));
+      return offset < 0 ? null : new SearchCursor(offset);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates executors that start a virtual thread per task on JDKs that have them (21 and newer).
+ * The application is built for Java 8, so the JDK API is looked up reflectively; on older
+ * runtimes {@link #isAvailable()} is false and callers keep their platform thread pools.
+ */
+public final class VirtualThreads {
+
+  private static final Method OF_VIRTUAL = findMethod(Thread.class, "ofVirtual");
+
+  private VirtualThreads() { /* utility */ }
+
+  public static boolean isAvailable() {
+    return OF_VIRTUAL != null;
+  }
+
+  /**
+   * Executor starting a new virtual thread for every task, threads named prefix0, prefix1...
+   * @throws IllegalStateException if the runtime has no virtual threads
+   */
+  public static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix) {
+    if (!isAvailable()) {
+      throw new IllegalStateException("Virtual threads need Java 21 or newer, running on "
+          + System.getProperty("java.version"));
+    }
+    try {
+      Object builder = OF_VIRTUAL.invoke(null);
+      Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+      builder = builderType.getMethod("name", String.class, long.class)
+          .invoke(builder, threadNamePrefix, 0L);
+      ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory")
+          .invoke(builder);
+      return (ExecutorService) Executors.class
+          .getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+          .invoke(null, threadFactory);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalStateException("Unable to create a virtual thread executor", e);
+    }
+  }
+
+  /**
+   * Like {@link #newThreadPerTaskExecutor(String)}, but at most maxConcurrency tasks run at a
+   * time. Further tasks still get a virtual thread, which waits for a permit before running the
+   * task; an interrupted wait skips the task.
+   * @throws IllegalStateException if the runtime has no virtual threads
+   */
+  public static ExecutorService newThreadPerTaskExecutor(String threadNamePrefix,
+      int maxConcurrency) {
+    return new BoundedExecutor(newThreadPerTaskExecutor(threadNamePrefix),
+        new Semaphore(maxConcurrency));
+  }
+
+  private static Method findMethod(Class<?> type, String name) {
+    try {
+      return type.getMethod(name);
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+
+  private static final class BoundedExecutor extends AbstractExecutorService {
+
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+
+    BoundedExecutor(ExecutorService delegate, Semaphore permits) {
+      this.delegate = delegate;
+      this.permits = permits;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      delegate.execute(() -> {
+        try {
+          permits.acquire();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        try {
+          command.run();
+        } finally {
+          permits.release();
+        }
+      });
+    }
+
+    @Override
+    public void shutdown() {
+      delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+      return delegate.awaitTermination(timeout, unit);
+    }
+  }
+}
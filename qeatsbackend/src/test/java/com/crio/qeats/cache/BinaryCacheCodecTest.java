@@ -0,0 +1,132 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.dto.Restaurant;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class BinaryCacheCodecTest {
+
+  private final BinaryCacheCodec codec = new BinaryCacheCodec();
+
+  @Test
+  public void decodesWhatWasEncoded() throws IOException {
+    Restaurant withNulls = new Restaurant("12", "Shanti Sagar", null, null, 20.0269, 30.0,
+        "18:00", "23:00", null);
+    CachedCell cell = new CachedCell(Arrays.asList(CachedRestaurant.of(restaurant(11)),
+        CachedRestaurant.of(withNulls)), 1000, 25, 3601000);
+
+    CachedCell decoded = codec.decode(codec.encode(cell));
+
+    assertEquals(1000, decoded.getComputedAt());
+    assertEquals(25, decoded.getComputeTimeInMillis());
+    assertEquals(3601000, decoded.getExpiresAt());
+    assertEquals(2, decoded.getRestaurants().size());
+    assertSameRestaurant(cell.getRestaurants().get(0), decoded.getRestaurants().get(0));
+    assertSameRestaurant(cell.getRestaurants().get(1), decoded.getRestaurants().get(1));
+    assertNull(decoded.getRestaurants().get(1).getRestaurant().getCity());
+    assertNull(decoded.getRestaurants().get(1).getRestaurant().getAttributes());
+  }
+
+  @Test
+  public void largeCellsAreCompressedAndSmallerThanJson() throws IOException {
+    List<CachedRestaurant> restaurants = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      restaurants.add(CachedRestaurant.of(restaurant(i)));
+    }
+    CachedCell cell = new CachedCell(restaurants, 1000, 25, 3601000);
+
+    byte[] encoded = codec.encode(cell);
+    CachedCell decoded = codec.decode(encoded);
+
+    assertEquals(BinaryCacheCodec.FORMAT_DEFLATED, encoded[0]);
+    assertTrue(encoded.length * 4 < new JsonCacheCodec().encode(cell).length);
+    for (int i = 0; i < restaurants.size(); i++) {
+      assertSameRestaurant(restaurants.get(i), decoded.getRestaurants().get(i));
+    }
+  }
+
+  @Test
+  public void rejectsOtherFormats() throws IOException {
+    byte[] json = new JsonCacheCodec().encode(new CachedCell(new ArrayList<>(), 0, 0, 0));
+
+    assertThrows(IOException.class, () -> codec.decode(json));
+    assertThrows(IOException.class, () -> codec.decode(new byte[0]));
+  }
+
+  @Test
+  public void restaurantsWithoutCoordinatesRoundTrip() throws IOException {
+    Restaurant withoutCoordinates = new Restaurant("13", "Shanti Sagar", "Hsr Layout",
+        "www.google.com", null, null, "18:00", "23:00", new ArrayList<>());
+    CachedCell cell = new CachedCell(
+        Arrays.asList(CachedRestaurant.of(withoutCoordinates)), 1000, 25, 3601000);
+
+    CachedCell decoded = codec.decode(codec.encode(cell));
+
+    assertSameRestaurant(cell.getRestaurants().get(0), decoded.getRestaurants().get(0));
+    assertNull(decoded.getRestaurants().get(0).getRestaurant().getLatitude());
+    assertNull(decoded.getRestaurants().get(0).getRestaurant().getLongitude());
+  }
+
+  @Test
+  public void rejectsCountsLargerThanTheRemainingInput() throws IOException {
+    byte[] hugeDictionary = corruptCell(0xFF, 0xFF, 0xFF, 0xFF, 0x07);
+    byte[] hugeRestaurantCount = corruptCell(0x00, 0xFF, 0xFF, 0xFF, 0x7F);
+    byte[] negativeDictionary = corruptCell(0xFF, 0xFF, 0xFF, 0xFF, 0x0F);
+
+    assertThrows(IOException.class, () -> codec.decode(hugeDictionary));
+    assertThrows(IOException.class, () -> codec.decode(hugeRestaurantCount));
+    assertThrows(IOException.class, () -> codec.decode(negativeDictionary));
+  }
+
+  // A plain cell whose header is followed by the given bytes.
+  private static byte[] corruptCell(int... afterHeader) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeByte(BinaryCacheCodec.FORMAT_PLAIN);
+    out.writeLong(1000);
+    out.writeLong(25);
+    out.writeLong(3601000);
+    for (int b : afterHeader) {
+      out.writeByte(b);
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static Restaurant restaurant(int id) {
+    return new Restaurant(String.valueOf(id), "Restaurant " + id, "Hsr Layout",
+        "www.google.com", 20.0 + id * 0.0001, 30.0, "18:00", "23:00",
+        new ArrayList<>(Arrays.asList("Tamil", "South Indian")));
+  }
+
+  private static void assertSameRestaurant(CachedRestaurant expected, CachedRestaurant actual) {
+    assertEquals(expected.getOpensAt(), actual.getOpensAt());
+    assertEquals(expected.getClosesAt(), actual.getClosesAt());
+    Restaurant restaurant = expected.getRestaurant();
+    assertEquals(restaurant.getRestaurantId(), actual.getRestaurant().getRestaurantId());
+    assertEquals(restaurant.getName(), actual.getRestaurant().getName());
+    assertEquals(restaurant.getCity(), actual.getRestaurant().getCity());
+    assertEquals(restaurant.getImageUrl(), actual.getRestaurant().getImageUrl());
+    assertEquals(restaurant.getLatitude(), actual.getRestaurant().getLatitude());
+    assertEquals(restaurant.getLongitude(), actual.getRestaurant().getLongitude());
+    assertEquals(restaurant.getOpensAt(), actual.getRestaurant().getOpensAt());
+    assertEquals(restaurant.getClosesAt(), actual.getRestaurant().getClosesAt());
+    assertEquals(restaurant.getAttributes(), actual.getRestaurant().getAttributes());
+  }
+}
@@ -0,0 +1,41 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+
+class CachedCellTest {
+
+  @Test
+  public void expiredCellIsAlwaysDueForRefresh() {
+    CachedCell cell = new CachedCell(new ArrayList<>(), 0, 100, 10_000);
+
+    assertTrue(cell.isDueForRefresh(10_000, 1.0));
+    assertTrue(cell.isDueForRefresh(20_000, 0.5));
+  }
+
+  @Test
+  public void freshCellIsNotRefreshed() {
+    CachedCell cell = new CachedCell(new ArrayList<>(), 0, 100, 3_600_000);
+
+    assertFalse(cell.isDueForRefresh(1_000, 0.001));
+  }
+
+  @Test
+  public void costlyCellIsRefreshedEarlierThanCheapCell() {
+    CachedCell cheap = new CachedCell(new ArrayList<>(), 0, 10, 10_000);
+    CachedCell costly = new CachedCell(new ArrayList<>(), 0, 2_000, 10_000);
+
+    // -ln(0.1) * delta is ~23ms for the cheap cell and ~4.6s for the costly one.
+    assertFalse(cheap.isDueForRefresh(9_000, 0.1));
+    assertTrue(costly.isDueForRefresh(9_000, 0.1));
+  }
+}
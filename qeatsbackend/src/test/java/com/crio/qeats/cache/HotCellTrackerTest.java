@@ -0,0 +1,90 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import ch.hsr.geohash.GeoHash;
+import com.crio.qeats.globals.GlobalConstants;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class HotCellTrackerTest {
+
+  private static final LocalDateTime MONDAY = LocalDateTime.of(2019, 6, 3, 0, 0);
+
+  private static String cellOf(double latitude, double longitude) {
+    return GeoHash.geoHashStringWithCharacterPrecision(latitude, longitude,
+        GlobalConstants.REDIS_CELL_GEOHASH_PRECISION);
+  }
+
+  @Test
+  public void busiestCellsComeFirst() {
+    HotCellTracker tracker = new HotCellTracker();
+    LocalDateTime at = MONDAY.withHour(8);
+    tracker.record(12.97, 77.59, at);
+    for (int i = 0; i < 3; i++) {
+      tracker.record(28.61, 77.20, at.plusMinutes(70));
+    }
+    tracker.record(28.611, 77.201, at);
+    tracker.record(19.07, 72.87, at);
+    tracker.record(19.07, 72.87, at);
+
+    assertEquals(Arrays.asList(cellOf(28.61, 77.20), cellOf(19.07, 72.87)),
+        tracker.findHottestCells(2, at, 8, 10));
+    assertEquals(3, tracker.findHottestCells(10, at, 8, 10).size());
+  }
+
+  @Test
+  public void eveningLookupsAreKeptUntilTheNextEvening() {
+    HotCellTracker tracker = new HotCellTracker();
+    for (int i = 0; i < 50; i++) {
+      tracker.record(28.61, 77.20, MONDAY.withHour(19).plusMinutes(i));
+    }
+    for (int i = 0; i < 500; i++) {
+      tracker.record(12.97, 77.59, MONDAY.plusDays(1).withHour(8).plusMinutes(i % 60));
+    }
+
+    LocalDateTime beforeEveningPeak = MONDAY.plusDays(1).withHour(18).withMinute(50);
+    assertEquals(Collections.singletonList(cellOf(28.61, 77.20)),
+        tracker.findHottestCells(10, beforeEveningPeak, 19, 21));
+    assertEquals(Collections.singletonList(cellOf(12.97, 77.59)),
+        tracker.findHottestCells(10, beforeEveningPeak, 8, 10));
+  }
+
+  @Test
+  public void hourStartsOverOnTheNextDay() {
+    HotCellTracker tracker = new HotCellTracker();
+    for (int i = 0; i < 3; i++) {
+      tracker.record(28.61, 77.20, MONDAY.withHour(13));
+    }
+    tracker.record(12.97, 77.59, MONDAY.plusDays(1).withHour(13));
+
+    assertEquals(Collections.singletonList(cellOf(12.97, 77.59)),
+        tracker.findHottestCells(10, MONDAY.plusDays(1).withHour(13), 13, 14));
+  }
+
+  @Test
+  public void lookupsOlderThanADayAreLeftOut() {
+    HotCellTracker tracker = new HotCellTracker();
+    tracker.record(28.61, 77.20, MONDAY.withHour(8));
+
+    assertTrue(tracker.findHottestCells(10, MONDAY.plusDays(2).withHour(7), 8, 10).isEmpty());
+  }
+
+  @Test
+  public void warmUpBeforePeakPicksTheComingWindow() {
+    assertArrayEquals(new int[] {8, 10}, CacheWarmer.findNextPeakWindow(7));
+    assertArrayEquals(new int[] {13, 14}, CacheWarmer.findNextPeakWindow(12));
+    assertArrayEquals(new int[] {19, 21}, CacheWarmer.findNextPeakWindow(18));
+    assertArrayEquals(new int[] {8, 10}, CacheWarmer.findNextPeakWindow(22));
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.cache;
+
+import static com.crio.qeats.utils.RestaurantFixtures.restaurant;
+import static com.crio.qeats.utils.RestaurantFixtures.restaurantIdsOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.dto.Restaurant;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SearchResultCacheTest {
+
+  private SearchResultCache searchResultCache;
+
+  @BeforeEach
+  void setup() {
+    searchResultCache = new SearchResultCache();
+    searchResultCache.initCache();
+  }
+
+  @Test
+  public void callersInTheSameCellShareOneSearch() {
+    AtomicInteger searches = new AtomicInteger();
+    List<String> queries = new ArrayList<>();
+    SearchResultCache.Search search = (latitude, longitude, searchFor, radiusInKms, limit) -> {
+      searches.incrementAndGet();
+      queries.add(searchFor);
+      return Arrays.asList(restaurant("1", "Biryani 1", 19.996, 30.0, "10:00", "23:00"),
+          restaurant("2", "Biryani 2", 20.025, 30.0, "10:00", "23:00"));
+    };
+
+    List<Restaurant> first = searchResultCache.find(19.996, 30.0, "biryani",
+        LocalTime.of(18, 1), 3.0, null, search);
+    // ~0.4km further north, still in the same cell but now within 3km of restaurant 2.
+    List<Restaurant> second = searchResultCache.find(20.0, 30.0, "  biryani ",
+        LocalTime.of(18, 2), 3.0, null, search);
+
+    assertEquals(1, searches.get());
+    assertEquals(Collections.singletonList("biryani"), queries);
+    assertEquals(Collections.singletonList("1"), restaurantIdsOf(first));
+    assertEquals(Arrays.asList("1", "2"), restaurantIdsOf(second));
+  }
+
+  @Test
+  public void restaurantsClosingWithinTheBucketAreLeftOut() {
+    SearchResultCache.Search search = (latitude, longitude, searchFor, radiusInKms, limit) ->
+        Arrays.asList(restaurant("1", "Biryani 1", 20.0, 30.0, "10:00", "18:02"),
+            restaurant("2", "Biryani 2", 20.0, 30.0, "10:00", "23:00"));
+
+    searchResultCache.find(20.0, 30.0, "biryani", LocalTime.of(18, 1), 3.0, null, search);
+
+    assertEquals(Collections.singletonList("2"), restaurantIdsOf(searchResultCache.find(20.0, 30.0,
+        "biryani", LocalTime.of(18, 3), 3.0, null, search)));
+  }
+
+  @Test
+  public void emptyResultsAreCachedToo() {
+    AtomicInteger searches = new AtomicInteger();
+    SearchResultCache.Search search = (latitude, longitude, searchFor, radiusInKms, limit) -> {
+      searches.incrementAndGet();
+      return new ArrayList<>();
+    };
+
+    for (int i = 0; i < 3; i++) {
+      assertTrue(searchResultCache.find(20.0, 30.0, "zzzz", LocalTime.of(18, 1), 3.0, null, search)
+          .isEmpty());
+    }
+    assertEquals(1, searches.get());
+
+    // Other radius classes and time buckets are searched separately.
+    searchResultCache.find(20.0, 30.0, "zzzz", LocalTime.of(18, 1), 5.0, null, search);
+    searchResultCache.find(20.0, 30.0, "zzzz", LocalTime.of(18, 30), 3.0, null, search);
+    assertEquals(3, searches.get());
+  }
+
+  @Test
+  public void pagesAreSearchedForOnlyTheResultsTheyNeed() {
+    List<Integer> limits = new ArrayList<>();
+    SearchResultCache.Search search = (latitude, longitude, searchFor, radiusInKms, limit) -> {
+      limits.add(limit);
+      List<Restaurant> restaurants = Arrays.asList(
+          restaurant("1", "Biryani 1", 20.0, 30.0, "10:00", "23:00"),
+          restaurant("2", "Biryani 2", 20.0, 30.0, "10:00", "23:00"),
+          restaurant("3", "Biryani 3", 20.0, 30.0, "10:00", "23:00"),
+          restaurant("4", "Biryani 4", 20.0, 30.0, "10:00", "23:00"));
+      return limit == null ? restaurants : restaurants.subList(0, Math.min(limit, 4));
+    };
+
+    List<Restaurant> firstPage = searchResultCache.find(20.0, 30.0, "biryani",
+        LocalTime.of(18, 1), 3.0, 2, search);
+    List<Restaurant> samePage = searchResultCache.find(20.0, 30.0, "biryani",
+        LocalTime.of(18, 1), 3.0, 2, search);
+    List<Restaurant> everything = searchResultCache.find(20.0, 30.0, "biryani",
+        LocalTime.of(18, 1), 3.0, null, search);
+
+    assertEquals(Arrays.asList(2, null), limits);
+    assertEquals(Arrays.asList("1", "2"), restaurantIdsOf(firstPage));
+    assertEquals(Arrays.asList("1", "2"), restaurantIdsOf(samePage));
+    assertEquals(Arrays.asList("1", "2", "3", "4"), restaurantIdsOf(everything));
+  }
+
+  @Test
+  public void pagesThinnedOutByDistanceSearchAgainForMore() {
+    List<Integer> limits = new ArrayList<>();
+    SearchResultCache.Search search = (latitude, longitude, searchFor, radiusInKms, limit) -> {
+      limits.add(limit);
+      // Restaurant 1 is in range of the cell but ~3.3km from the caller.
+      List<Restaurant> restaurants = Arrays.asList(
+          restaurant("1", "Biryani 1", 20.03, 30.0, "10:00", "23:00"),
+          restaurant("2", "Biryani 2", 20.0, 30.0, "10:00", "23:00"),
+          restaurant("3", "Biryani 3", 20.0, 30.0, "10:00", "23:00"));
+      return restaurants.subList(0, Math.min(limit, 3));
+    };
+
+    List<Restaurant> page = searchResultCache.find(20.0, 30.0, "biryani", LocalTime.of(18, 1),
+        3.0, 2, search);
+
+    assertEquals(Arrays.asList(2, 4), limits);
+    assertEquals(Arrays.asList("2", "3"), restaurantIdsOf(page));
+  }
+}
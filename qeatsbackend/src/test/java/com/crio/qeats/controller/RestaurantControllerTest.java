@@ -15,8 +15,10 @@ import static com.crio.qeats.controller.RestaurantController.MENU_API;
 import static com.crio.qeats.controller.RestaurantController.POST_ORDER_API;
 import static com.crio.qeats.controller.RestaurantController.RESTAURANTS_API;
 import static com.crio.qeats.controller.RestaurantController.RESTAURANT_API_ENDPOINT;
+import static com.crio.qeats.controller.RestaurantController.SUGGEST_API;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.times;
@@ -30,8 +32,11 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.crio.qeats.QEatsApplication;
+import com.crio.qeats.dto.Suggestion;
 import com.crio.qeats.exchanges.GetRestaurantsRequest;
 import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.exchanges.GetSuggestionsRequest;
+import com.crio.qeats.exchanges.GetSuggestionsResponse;
 import com.crio.qeats.services.RestaurantService;
 import com.crio.qeats.utils.FixtureHelpers;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -39,6 +44,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.net.URI;
 import java.time.LocalTime;
+import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
 import org.junit.jupiter.api.BeforeEach;
@@ -73,6 +79,7 @@ public class RestaurantControllerTest {
   //FIXME: REVIEW the api names
   private static final String RESTAURANT_API_URI = RESTAURANT_API_ENDPOINT + RESTAURANTS_API;
   private static final String MENU_API_URI = RESTAURANT_API_ENDPOINT + MENU_API;
+  private static final String SUGGEST_API_URI = RESTAURANT_API_ENDPOINT + SUGGEST_API;
   private static final String CART_API_URI = RESTAURANT_API_ENDPOINT + CART_API;
   private static final String ADD_REMOVE_CART_API_URI = RESTAURANT_API_ENDPOINT + CART_ITEM_API;
   private static final String CLEAR_CART_API_URI = RESTAURANT_API_ENDPOINT + CART_CLEAR_API;
@@ -175,6 +182,68 @@ public class RestaurantControllerTest {
 
   }
 
+  @Test
+  public void getSuggestionsForPrefixAndLatLong() throws Exception {
+    when(restaurantService
+        .findSuggestions(any(GetSuggestionsRequest.class), any(LocalTime.class)))
+        .thenReturn(new GetSuggestionsResponse(Collections.singletonList(
+            new Suggestion("Biryani", Suggestion.Type.CUISINE))));
+
+    ArgumentCaptor<GetSuggestionsRequest> argumentCaptor = ArgumentCaptor
+        .forClass(GetSuggestionsRequest.class);
+
+    URI uri = UriComponentsBuilder
+        .fromPath(SUGGEST_API_URI)
+        .queryParam("latitude", "20.21")
+        .queryParam("longitude", "30.31")
+        .queryParam("prefix", "bir")
+        .queryParam("limit", "5")
+        .build().toUri();
+
+    MockHttpServletResponse response = mvc.perform(
+        get(uri.toString()).accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.OK.value(), response.getStatus());
+    assertTrue(response.getContentAsString().contains("\"type\":\"CUISINE\""));
+
+    verify(restaurantService, times(1))
+        .findSuggestions(argumentCaptor.capture(), any(LocalTime.class));
+
+    assertEquals("bir", argumentCaptor.getValue().getPrefix());
+
+    assertEquals(Integer.valueOf(5), argumentCaptor.getValue().getLimit());
+  }
+
+  @Test
+  public void missingPrefixOrTooLargeLimitResultsInBadHttpRequest() throws Exception {
+    URI uri = UriComponentsBuilder
+        .fromPath(SUGGEST_API_URI)
+        .queryParam("latitude", "20.21")
+        .queryParam("longitude", "30.31")
+        .build().toUri();
+
+    MockHttpServletResponse response = mvc.perform(
+        get(uri.toString()).accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+
+    uri = UriComponentsBuilder
+        .fromPath(SUGGEST_API_URI)
+        .queryParam("latitude", "20.21")
+        .queryParam("longitude", "30.31")
+        .queryParam("prefix", "bir")
+        .queryParam("limit", "21")
+        .build().toUri();
+
+    response = mvc.perform(
+        get(uri.toString()).accept(APPLICATION_JSON_UTF8)
+    ).andReturn().getResponse();
+
+    assertEquals(HttpStatus.BAD_REQUEST.value(), response.getStatus());
+  }
+
   @Test
   public void invalidLatitudeResultsInBadHttpRequest() throws Exception {
     URI uri = UriComponentsBuilder
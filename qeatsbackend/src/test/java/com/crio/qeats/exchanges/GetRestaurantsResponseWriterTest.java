@@ -0,0 +1,69 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.exchanges;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.RestaurantSnapshot;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class GetRestaurantsResponseWriterTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final GetRestaurantsResponseWriter writer = new GetRestaurantsResponseWriter();
+
+  @Test
+  public void writesSameJsonAsJacksonWithCleanNames() throws IOException {
+    Restaurant a2b = new Restaurant("10", "A2B", "Hsr Layout", "www.google.com", 20.027, 30.0,
+        "18:00", "23:00", Arrays.asList("Tamil", "South Indian"));
+    Restaurant cafe = new Restaurant("11", "Café Coffee Day!", "Btm Layout", "www.google.com",
+        20.0269, 30.0, "18:00", "23:00", new ArrayList<>());
+    List<Restaurant> restaurants = Arrays.asList(a2b, cafe);
+
+    JsonNode written = objectMapper.readTree(writer.write(new GetRestaurantsResponse(restaurants)));
+
+    Restaurant cleanCafe = new Restaurant("11", "Caf Coffee Day", "Btm Layout", "www.google.com",
+        20.0269, 30.0, "18:00", "23:00", new ArrayList<>());
+    assertEquals(objectMapper.valueToTree(new GetRestaurantsResponse(Arrays.asList(a2b,
+        cleanCafe))), written);
+    assertEquals("Café Coffee Day!", cafe.getName());
+  }
+
+  @Test
+  public void writesNextCursorAndEmptyLists() throws IOException {
+    GetRestaurantsResponse empty = new GetRestaurantsResponse(new ArrayList<>());
+    GetRestaurantsResponse paged = new GetRestaurantsResponse(new ArrayList<>(), "abc");
+
+    assertEquals(objectMapper.valueToTree(empty), objectMapper.readTree(writer.write(empty)));
+    assertEquals(objectMapper.valueToTree(paged), objectMapper.readTree(writer.write(paged)));
+  }
+
+  @Test
+  public void reusesFragmentOnlyForSnapshots() throws IOException {
+    Restaurant restaurant = new Restaurant("10", "A2B", "Hsr Layout", "www.google.com", 20.027,
+        30.0, "18:00", "23:00", Arrays.asList("Tamil"));
+    RestaurantSnapshot snapshot = RestaurantSnapshot.of(restaurant);
+    GetRestaurantsResponse response =
+        new GetRestaurantsResponse(Arrays.asList(restaurant, snapshot));
+    writer.write(response);
+
+    restaurant.setName("Renamed");
+    assertThrows(UnsupportedOperationException.class, () -> snapshot.setName("Renamed"));
+
+    JsonNode written = objectMapper.readTree(writer.write(response)).get("restaurants");
+    assertEquals("Renamed", written.get(0).get("name").asText());
+    assertEquals("A2B", written.get(1).get("name").asText());
+  }
+}
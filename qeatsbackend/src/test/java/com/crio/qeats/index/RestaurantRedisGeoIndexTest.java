@@ -0,0 +1,208 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import static com.crio.qeats.utils.RestaurantFixtures.restaurantEntity;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.configs.RedisConnection;
+import com.crio.qeats.globals.GlobalConstants;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicReference;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Query;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
+
+// The embedded Redis used by the other tests predates GEOADD, so Redis is mocked here.
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RestaurantRedisGeoIndexTest {
+
+  @Mock
+  private RestaurantRepository restaurantRepository;
+
+  @Mock
+  private MongoTemplate mongoTemplate;
+
+  @Mock
+  private RedisConfiguration redisConfiguration;
+
+  @Mock
+  private RedisConnection redisConnection;
+
+  @Mock
+  private Jedis jedis;
+
+  @Mock
+  private Pipeline pipeline;
+
+  @InjectMocks
+  private RestaurantRedisGeoIndex restaurantRedisGeoIndex;
+
+  private final AtomicReference<String> storedGeneration = new AtomicReference<>();
+
+  @BeforeEach
+  void setup() {
+    when(redisConfiguration.isCacheAvailable()).thenReturn(true);
+    when(redisConfiguration.getConnection()).thenReturn(redisConnection);
+    when(redisConnection.getJedis()).thenReturn(jedis);
+    when(jedis.pipelined()).thenReturn(pipeline);
+    when(jedis.zrange(GlobalConstants.REDIS_GEO_KEY, 0, -1)).thenReturn(Collections.emptySet());
+    when(jedis.exists(GlobalConstants.REDIS_GEO_KEY)).thenReturn(true);
+    when(jedis.setnx(eq(GlobalConstants.REDIS_GEO_GENERATION_KEY), anyString()))
+        .thenAnswer(invocation -> storedGeneration.compareAndSet(null, invocation.getArgument(1))
+            ? 1L : 0L);
+    when(jedis.get(GlobalConstants.REDIS_GEO_GENERATION_KEY))
+        .thenAnswer(invocation -> storedGeneration.get());
+  }
+
+  private static RestaurantEntity restaurant(String id, String restaurantId, String name) {
+    RestaurantEntity restaurantEntity =
+        restaurantEntity(restaurantId, name, 20.0269, 30.0, "18:00", "23:00", "Tamil");
+    restaurantEntity.setId(id);
+    return restaurantEntity;
+  }
+
+  private void verifyWritten(String restaurantId, String name) {
+    verify(pipeline).hmset(eq(GlobalConstants.REDIS_RESTAURANT_KEY_PREFIX + restaurantId),
+        argThat(fields -> fields.get("restaurant").contains("\"name\":\"" + name + "\"")
+            && fields.get("opensAt").equals("1080") && fields.get("closesAt").equals("1380")));
+  }
+
+  @Test
+  void firstSyncWritesEveryRestaurantAndRemovesStaleOnes() {
+    when(jedis.zrange(GlobalConstants.REDIS_GEO_KEY, 0, -1))
+        .thenReturn(Collections.singleton("99"));
+    when(restaurantRepository.findAll()).thenReturn(Arrays.asList(
+        restaurant(new ObjectId().toHexString(), "11", "A2B"),
+        restaurant(new ObjectId().toHexString(), "12", "Udupi")));
+
+    restaurantRedisGeoIndex.sync();
+
+    assertTrue(restaurantRedisGeoIndex.isLoaded());
+    verifyWritten("11", "A2B");
+    verifyWritten("12", "Udupi");
+    verify(pipeline).geoadd(GlobalConstants.REDIS_GEO_KEY, 30.0, 20.0269, "11");
+    verify(pipeline).geoadd(GlobalConstants.REDIS_GEO_KEY, 30.0, 20.0269, "12");
+    verify(pipeline).zrem(GlobalConstants.REDIS_GEO_KEY, "99");
+    verify(pipeline).del(GlobalConstants.REDIS_RESTAURANT_KEY_PREFIX + "99");
+  }
+
+  @Test
+  void reconcileRewritesOnlyChangedRestaurantsAndRemovesDeletedOnes() {
+    String id = new ObjectId().toHexString();
+    RestaurantEntity unchanged = restaurant(new ObjectId().toHexString(), "13", "Paradise");
+    when(restaurantRepository.findAll()).thenReturn(Arrays.asList(
+        restaurant(id, "11", "A2B"),
+        restaurant(new ObjectId().toHexString(), "12", "Udupi"),
+        unchanged));
+    restaurantRedisGeoIndex.sync();
+    when(jedis.zrange(GlobalConstants.REDIS_GEO_KEY, 0, -1))
+        .thenReturn(new HashSet<>(Arrays.asList("11", "12", "13")));
+
+    when(restaurantRepository.findAll()).thenReturn(Arrays.asList(
+        restaurant(id, "11", "A2B Adyar Ananda Bhavan"), unchanged));
+    restaurantRedisGeoIndex.sync();
+
+    verifyWritten("11", "A2B Adyar Ananda Bhavan");
+    verify(pipeline, times(4)).hmset(any(String.class), anyMap());
+    verify(pipeline).zrem(GlobalConstants.REDIS_GEO_KEY, "12");
+    verify(pipeline).del(GlobalConstants.REDIS_RESTAURANT_KEY_PREFIX + "12");
+  }
+
+  @Test
+  void syncNewRestaurantsReadsOnlyRestaurantsAddedSinceTheLastSync() {
+    ObjectId lastId = new ObjectId();
+    when(restaurantRepository.findAll()).thenReturn(Collections.singletonList(
+        restaurant(lastId.toHexString(), "11", "A2B")));
+    restaurantRedisGeoIndex.sync();
+    when(mongoTemplate.find(any(Query.class), eq(RestaurantEntity.class))).thenReturn(
+        Collections.singletonList(restaurant(new ObjectId().toHexString(), "12", "Udupi")));
+
+    restaurantRedisGeoIndex.syncNewRestaurants();
+
+    ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+    verify(mongoTemplate).find(query.capture(), eq(RestaurantEntity.class));
+    assertEquals(new Document("_id", new Document("$gt", lastId)),
+        query.getValue().getQueryObject());
+    verify(restaurantRepository, times(1)).findAll();
+    verifyWritten("12", "Udupi");
+  }
+
+  @Test
+  void syncNewRestaurantsReloadsEverythingWhenRedisLostTheSet() {
+    when(restaurantRepository.findAll()).thenReturn(Collections.singletonList(
+        restaurant(new ObjectId().toHexString(), "11", "A2B")));
+    restaurantRedisGeoIndex.sync();
+    storedGeneration.set(null);
+    when(jedis.exists(GlobalConstants.REDIS_GEO_KEY)).thenReturn(false);
+
+    restaurantRedisGeoIndex.syncNewRestaurants();
+
+    verify(restaurantRepository, times(2)).findAll();
+    verify(mongoTemplate, never()).find(any(Query.class), eq(RestaurantEntity.class));
+    verify(pipeline, times(2)).geoadd(eq(GlobalConstants.REDIS_GEO_KEY), anyDouble(),
+        anyDouble(), eq("11"));
+  }
+
+  @Test
+  void setRebuiltByAnotherInstanceIsWrittenInFullAgain() {
+    when(restaurantRepository.findAll()).thenReturn(Collections.singletonList(
+        restaurant(new ObjectId().toHexString(), "11", "A2B")));
+    restaurantRedisGeoIndex.sync();
+    restaurantRedisGeoIndex.sync();
+    verify(pipeline, times(1)).hmset(any(String.class), anyMap());
+
+    storedGeneration.set("rebuilt elsewhere");
+    restaurantRedisGeoIndex.sync();
+
+    verify(pipeline, times(2)).hmset(any(String.class), anyMap());
+    assertEquals("rebuilt elsewhere", storedGeneration.get());
+  }
+
+  @Test
+  void savedRestaurantsAreWrittenRightAway() {
+    String id = new ObjectId().toHexString();
+    when(restaurantRepository.findAll()).thenReturn(Collections.singletonList(
+        restaurant(id, "11", "A2B")));
+    restaurantRedisGeoIndex.sync();
+
+    restaurantRedisGeoIndex.onAfterSave(new AfterSaveEvent<>(
+        restaurant(id, "11", "A2B Adyar Ananda Bhavan"), new Document(), "restaurants"));
+
+    verifyWritten("11", "A2B Adyar Ananda Bhavan");
+  }
+}
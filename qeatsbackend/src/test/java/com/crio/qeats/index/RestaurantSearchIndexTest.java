@@ -0,0 +1,124 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import static com.crio.qeats.utils.RestaurantFixtures.restaurantEntity;
+import static com.crio.qeats.utils.RestaurantFixtures.restaurantIdsOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.repositories.ItemRepository;
+import com.crio.qeats.repositories.MenuRepository;
+import com.crio.qeats.repositories.RestaurantRepository;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class RestaurantSearchIndexTest {
+
+  private static final LocalTime NOON = LocalTime.of(12, 0);
+
+  @Mock
+  private RestaurantRepository restaurantRepository;
+
+  @Mock
+  private MenuRepository menuRepository;
+
+  @Mock
+  private ItemRepository itemRepository;
+
+  @InjectMocks
+  private RestaurantSearchIndex restaurantSearchIndex;
+
+  private static Item item(String itemId, String name, String... attributes) {
+    return new Item(null, itemId, name, "www.google.com",
+        new ArrayList<>(Arrays.asList(attributes)), 100);
+  }
+
+  @BeforeEach
+  public void buildIndex() {
+    ItemEntity sweetLassi = new ItemEntity();
+    sweetLassi.setItemId("i3");
+    sweetLassi.setName("Lassi");
+    sweetLassi.setAttributes(Collections.singletonList("Sweet"));
+
+    when(restaurantRepository.findAll()).thenReturn(Arrays.asList(
+        restaurantEntity("4", "Pizza Corner", 17.0, 78.0, "10:00", "23:00", "Italian"),
+        restaurantEntity("2", "Paradise Biryani", 17.0, 78.0, "10:00", "23:00", "North Indian"),
+        restaurantEntity("1", "Dosa Plaza", 17.0, 78.0, "10:00", "23:00", "South Indian"),
+        restaurantEntity("3", "Biryani Nights", 17.0, 78.0, "18:00", "23:00", "Mughlai"),
+        restaurantEntity("5", "Far Biryani", 17.5, 78.0, "10:00", "23:00", "Hyderabadi")));
+    when(menuRepository.findAll()).thenReturn(Arrays.asList(
+        new MenuEntity("m1", "1", Arrays.asList(item("i1", "Masala Dosa", "Spicy"),
+            item("i3", "Lassi"))),
+        new MenuEntity("m4", "4", Collections.singletonList(item("i2", "Paneer Tikka Pizza")))));
+    when(itemRepository.findAll()).thenReturn(Collections.singletonList(sweetLassi));
+
+    restaurantSearchIndex.rebuild();
+  }
+
+  private List<String> search(String searchFor) {
+    return restaurantIdsOf(restaurantSearchIndex.findRestaurants(17.0, 78.0, searchFor, NOON, 5.0));
+  }
+
+  @Test
+  public void matchesPartOfNamesIgnoringCase() {
+    assertEquals(Collections.singletonList("2"), search("biryani"));
+    assertEquals(Collections.singletonList("2"), search("  PARA "));
+    assertEquals(Collections.singletonList("1"), search("dosa plaza"));
+  }
+
+  @Test
+  public void matchesAttributesAndMenuItems() {
+    assertEquals(Arrays.asList("1", "2"), search("indian"));
+    assertEquals(Collections.singletonList("4"), search("tikka"));
+    assertEquals(Collections.singletonList("1"), search("spicy"));
+    assertEquals(Collections.singletonList("1"), search("sweet"));
+    assertEquals(Arrays.asList("1", "2", "4"), search("p"));
+  }
+
+  @Test
+  public void everyWordMustMatchTheSameField() {
+    assertEquals(Collections.singletonList("1"), search("south ind"));
+    assertTrue(search("south pizza").isEmpty());
+    assertTrue(search("dosaplaza").isEmpty());
+  }
+
+  @Test
+  public void closedAndFarRestaurantsAreLeftOut() {
+    assertTrue(search("nights").isEmpty());
+    assertTrue(search("hyderabadi").isEmpty());
+    assertEquals(Collections.singletonList("3"),
+        restaurantIdsOf(restaurantSearchIndex.findRestaurants(17.0, 78.0, "nights",
+            LocalTime.of(19, 0), 5.0)));
+  }
+
+  @Test
+  public void blankSearchesMatchNothing() {
+    assertTrue(search("").isEmpty());
+    assertTrue(search(" - ").isEmpty());
+  }
+
+  @Test
+  public void tokenizeSplitsOnNonWordCharacters() {
+    assertEquals(Arrays.asList("chicken", "65", "biryani"),
+        RestaurantSearchIndex.tokenize("Chicken-65 (Biryani)"));
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.index;
+
+import static com.crio.qeats.utils.RestaurantFixtures.restaurantEntity;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.dto.Item;
+import com.crio.qeats.dto.Suggestion;
+import com.crio.qeats.models.MenuEntity;
+import com.crio.qeats.repositories.MenuRepository;
+import com.crio.qeats.repositories.RestaurantRepository;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+class SuggestionIndexTest {
+
+  @Mock
+  private RestaurantRepository restaurantRepository;
+
+  @Mock
+  private MenuRepository menuRepository;
+
+  @InjectMocks
+  private SuggestionIndex suggestionIndex;
+
+  private static MenuEntity menu(String restaurantId, String... itemNames) {
+    List<Item> items = new ArrayList<>();
+    for (String itemName : itemNames) {
+      items.add(new Item(null, itemName, itemName, "www.google.com", new ArrayList<>(), 100));
+    }
+    return new MenuEntity("m" + restaurantId, restaurantId, items);
+  }
+
+  @BeforeEach
+  public void buildIndex() {
+    when(restaurantRepository.findAll()).thenReturn(Arrays.asList(
+        restaurantEntity("1", "Biryani Nights", 17.0, 78.0, "10:00", "23:00", "Mughlai"),
+        restaurantEntity("2", "Paradise", 17.0, 78.0, "10:00", "23:00", "Biryani", "Mughlai"),
+        restaurantEntity("3", "Bawarchi", 17.0, 78.0, "10:00", "23:00", "Biryani"),
+        restaurantEntity("4", "Far Biryani House", 17.5, 78.0, "10:00", "23:00", "Biryani",
+            "Biryani")));
+    when(menuRepository.findAll()).thenReturn(Arrays.asList(
+        menu("1", "Chicken Biryani", "Mutton Biryani"),
+        menu("2", "Chicken Biryani", "Double ka Meetha"),
+        menu("3", "chicken-biryani"),
+        menu("9", "Bitter Gourd")));
+
+    suggestionIndex.rebuild();
+  }
+
+  private static List<String> textsOf(List<Suggestion> suggestions) {
+    List<String> ids = new ArrayList<>();
+    for (Suggestion suggestion : suggestions) {
+      ids.add(suggestion.getType() + " " + suggestion.getText());
+    }
+    return ids;
+  }
+
+  private List<String> suggest(String prefix, int limit) {
+    return textsOf(suggestionIndex.findSuggestions(17.0, 78.0, prefix, limit, 5.0));
+  }
+
+  @Test
+  public void ranksCompletionsByNearbyRestaurants() {
+    assertEquals(Arrays.asList("ITEM Chicken Biryani", "CUISINE Biryani",
+        "RESTAURANT Biryani Nights", "ITEM Mutton Biryani"), suggest("bir", 10));
+    assertEquals(Arrays.asList("ITEM Chicken Biryani", "CUISINE Biryani"),
+        suggest("BIR", 2));
+  }
+
+  @Test
+  public void completesFromTheStartOfAnyWord() {
+    assertEquals(Collections.singletonList("ITEM Double ka Meetha"), suggest("meet", 10));
+    assertEquals(Collections.singletonList("ITEM Chicken Biryani"), suggest("chicken bi", 10));
+    assertEquals(Collections.singletonList("RESTAURANT Biryani Nights"),
+        suggest("biryani  n", 10));
+    assertTrue(suggest("icken", 10).isEmpty());
+  }
+
+  @Test
+  public void fewNearbyRestaurantsRankTheSameWay() {
+    assertEquals(Arrays.asList("CUISINE Biryani", "RESTAURANT Far Biryani House"),
+        textsOf(suggestionIndex.findSuggestions(17.5, 78.0, "b", 10, 5.0)));
+    assertEquals(Collections.singletonList("CUISINE Biryani"),
+        textsOf(suggestionIndex.findSuggestions(17.5, 78.0, "b", 1, 5.0)));
+  }
+
+  @Test
+  public void restaurantsInNeighbouringCellsWithinTheRadiusCount() {
+    // 17.04 lies in the geohash cell north of the one holding the restaurants at 17.0.
+    assertEquals(Arrays.asList("ITEM Chicken Biryani", "CUISINE Biryani"),
+        textsOf(suggestionIndex.findSuggestions(17.04, 78.0, "bir", 2, 5.0)));
+  }
+
+  @Test
+  public void farRestaurantsAndMissingPrefixesGiveNothing() {
+    assertTrue(suggest("far", 10).isEmpty());
+    assertTrue(suggest("house", 10).isEmpty());
+    assertTrue(suggest("bitter", 10).isEmpty());
+    assertTrue(suggest("pizza", 10).isEmpty());
+    assertTrue(suggest(" - ", 10).isEmpty());
+    assertTrue(suggestionIndex.findSuggestions(40.0, 78.0, "bir", 10, 5.0).isEmpty());
+  }
+}
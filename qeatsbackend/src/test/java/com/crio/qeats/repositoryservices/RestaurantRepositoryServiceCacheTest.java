@@ -2,14 +2,19 @@ package com.crio.qeats.repositoryservices;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.when;
 
 import ch.hsr.geohash.GeoHash;
 import com.crio.qeats.QEatsApplication;
 import com.crio.qeats.configs.RedisConfiguration;
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.globals.GlobalConstants;
 import com.crio.qeats.models.RestaurantEntity;
 import com.crio.qeats.repositories.RestaurantRepository;
 import com.crio.qeats.utils.FixtureHelpers;
@@ -17,7 +22,11 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.inject.Provider;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -27,7 +36,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import redis.clients.jedis.Jedis;
@@ -42,7 +53,7 @@ class RestaurantRepositoryServiceCacheTest {
 
   @Autowired
   private RestaurantRepositoryService restaurantRepositoryService;
-  @Autowired
+  @SpyBean
   private MongoTemplate mongoTemplate;
   @Autowired
   private RedisConfiguration redisConfiguration;
@@ -59,6 +70,11 @@ class RestaurantRepositoryServiceCacheTest {
   @MockBean
   private RestaurantRepository mockRestaurantRepository;
 
+  @BeforeEach
+  void setup() {
+    redisConfiguration.initCache();
+  }
+
   @AfterEach
   void teardown() {
     redisConfiguration.destroyCache();
@@ -66,11 +82,11 @@ class RestaurantRepositoryServiceCacheTest {
 
 
   @Test
-  void restaurantsCloseByFromWarmCache(@Autowired MongoTemplate mongoTemplate) throws IOException {
+  void restaurantsCloseByFromWarmCache() throws IOException {
     assertNotNull(mongoTemplate);
     assertNotNull(restaurantRepositoryService);
 
-    when(mockRestaurantRepository.findAll()).thenReturn(listOfRestaurants());
+    doReturn(listOfRestaurants()).when(mongoTemplate).find(inCells(), eq(RestaurantEntity.class));
 
     Jedis jedis = redisConfiguration.getJedisPool().getResource();
 
@@ -79,15 +95,61 @@ class RestaurantRepositoryServiceCacheTest {
         .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
     allRestaurantsCloseBy = restaurantRepositoryService
         .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
-    GeoHash geoHash = GeoHash.withCharacterPrecision(20.0, 30.0, 7);
+    GeoHash geoHash = GeoHash.withCharacterPrecision(20.0, 30.0,
+        GlobalConstants.REDIS_CELL_GEOHASH_PRECISION);
+
+    verify(mongoTemplate, times(1)).find(inCells(), eq(RestaurantEntity.class));
+    verify(mockRestaurantRepository, never()).findAll();
+    assertNotNull(jedis.get(GlobalConstants.REDIS_CELL_KEY_PREFIX + geoHash.toBase32()));
+    assertEquals(2, allRestaurantsCloseBy.size());
+    assertEquals("11", allRestaurantsCloseBy.get(0).getRestaurantId());
+    assertEquals("12", allRestaurantsCloseBy.get(1).getRestaurantId());
+  }
+
+  @Test
+  void restaurantsCloseByFromLocalCacheWithoutRedis() throws IOException {
+    doReturn(listOfRestaurants()).when(mongoTemplate).find(inCells(), eq(RestaurantEntity.class));
+
+    restaurantRepositoryService.findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
+    try (Jedis jedis = redisConfiguration.getJedisPool().getResource()) {
+      jedis.flushAll();
+    }
+    List<Restaurant> allRestaurantsCloseBy = restaurantRepositoryService
+        .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0);
 
-    verify(mockRestaurantRepository, times(1)).findAll();
-    assertNotNull(jedis.get(geoHash.toBase32()));
+    verify(mongoTemplate, times(1)).find(inCells(), eq(RestaurantEntity.class));
     assertEquals(2, allRestaurantsCloseBy.size());
     assertEquals("11", allRestaurantsCloseBy.get(0).getRestaurantId());
     assertEquals("12", allRestaurantsCloseBy.get(1).getRestaurantId());
   }
 
+  @Test
+  void concurrentMissesLoadFromDatabaseOnce() throws Exception {
+    List<RestaurantEntity> restaurantEntities = listOfRestaurants();
+    doAnswer(invocation -> {
+      Thread.sleep(200);
+      return restaurantEntities;
+    }).when(mongoTemplate).find(inCells(), eq(RestaurantEntity.class));
+
+    ExecutorService executorService = Executors.newFixedThreadPool(8);
+    List<Future<List<Restaurant>>> results = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      results.add(executorService.submit(() -> restaurantRepositoryService
+          .findAllRestaurantsCloseBy(20.0, 30.0, LocalTime.of(18, 1), 3.0)));
+    }
+
+    for (Future<List<Restaurant>> result : results) {
+      assertEquals(2, result.get().size());
+    }
+    executorService.shutdown();
+    verify(mongoTemplate, times(1)).find(inCells(), eq(RestaurantEntity.class));
+  }
+
+  // The ranged query cell misses are loaded with, as opposed to the warm-up's location scan.
+  private static Query inCells() {
+    return argThat(query -> query.getQueryObject().containsKey("$or"));
+  }
+
   private List<RestaurantEntity> listOfRestaurants() throws IOException {
     String fixture =
         FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json");
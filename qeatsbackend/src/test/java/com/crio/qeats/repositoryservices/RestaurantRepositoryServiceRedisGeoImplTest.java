@@ -0,0 +1,111 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.repositoryservices;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.configs.RedisConfiguration;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.index.RestaurantRedisGeoIndex;
+import com.crio.qeats.models.RestaurantEntity;
+import com.crio.qeats.repositories.RestaurantRepository;
+import com.crio.qeats.utils.CircuitBreaker;
+import com.crio.qeats.utils.FixtureHelpers;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RestaurantRepositoryServiceRedisGeoImplTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  @Mock
+  private RestaurantRedisGeoIndex restaurantRedisGeoIndex;
+
+  @Mock
+  private RedisConfiguration redisConfiguration;
+
+  @Mock
+  private CircuitBreaker circuitBreaker;
+
+  @Mock
+  private RestaurantRepository restaurantRepository;
+
+  @Mock
+  private MongoTemplate mongoTemplate;
+
+  @InjectMocks
+  private RestaurantRepositoryServiceRedisGeoImpl restaurantRepositoryService;
+
+  @BeforeEach
+  void setup() throws IOException {
+    when(redisConfiguration.getCircuitBreaker()).thenReturn(circuitBreaker);
+    when(redisConfiguration.isCacheAvailable()).thenReturn(true);
+    when(restaurantRedisGeoIndex.isLoaded()).thenReturn(true);
+    when(mongoTemplate.find(any(Query.class), eq(RestaurantEntity.class))).thenReturn(
+        new ObjectMapper().readValue(
+            FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json"),
+            new TypeReference<List<RestaurantEntity>>() {}));
+  }
+
+  // From the bounding box of the serving radius, never the whole collection.
+  private void assertAnsweredFromDatabase(List<Restaurant> restaurants) {
+    verify(mongoTemplate, times(1)).find(any(Query.class), eq(RestaurantEntity.class));
+    verify(restaurantRepository, never()).findAll();
+    verify(redisConfiguration, never()).getConnection();
+    assertEquals(2, restaurants.size());
+    assertEquals("11", restaurants.get(0).getRestaurantId());
+    assertEquals("12", restaurants.get(1).getRestaurantId());
+  }
+
+  @Test
+  void redisFailureFallsBackToTheDatabaseWithoutRetryingRedis() {
+    when(circuitBreaker.tryAcquirePermission()).thenReturn(true);
+    when(restaurantRedisGeoIndex.findRestaurantsCloseBy(any(), any(), any(), any()))
+        .thenThrow(new JedisConnectionException("connection refused"));
+
+    List<Restaurant> restaurants = restaurantRepositoryService.findAllRestaurantsCloseBy(20.0,
+        30.0, LocalTime.of(18, 1), 3.0);
+
+    verify(restaurantRedisGeoIndex, times(1))
+        .findRestaurantsCloseBy(any(), any(), any(), any());
+    verify(circuitBreaker).onError();
+    assertAnsweredFromDatabase(restaurants);
+  }
+
+  @Test
+  void openCircuitBreakerGoesStraightToTheDatabase() {
+    when(circuitBreaker.tryAcquirePermission()).thenReturn(false);
+
+    List<Restaurant> restaurants = restaurantRepositoryService.findAllRestaurantsCloseBy(20.0,
+        30.0, LocalTime.of(18, 1), 3.0);
+
+    verify(restaurantRedisGeoIndex, never()).findRestaurantsCloseBy(any(), any(), any(), any());
+    assertAnsweredFromDatabase(restaurants);
+  }
+}
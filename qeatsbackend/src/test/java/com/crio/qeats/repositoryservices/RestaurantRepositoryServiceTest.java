@@ -9,6 +9,7 @@ package com.crio.qeats.repositoryservices;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.times;
@@ -18,6 +19,9 @@ import static org.mockito.Mockito.when;
 import com.crio.qeats.QEatsApplication;
 import com.crio.qeats.configs.RedisConfiguration;
 import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.dto.SearchMatch;
+import com.crio.qeats.models.ItemEntity;
+import com.crio.qeats.models.MenuEntity;
 import com.crio.qeats.models.RestaurantEntity;
 import com.crio.qeats.repositories.RestaurantRepository;
 import com.crio.qeats.utils.FixtureHelpers;
@@ -26,6 +30,8 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.time.LocalTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import javax.inject.Provider;
@@ -38,6 +44,7 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexInfo;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
 import redis.embedded.RedisServer;
@@ -88,6 +95,8 @@ public class RestaurantRepositoryServiceTest {
   @AfterEach
   void teardown() {
     mongoTemplate.dropCollection("restaurants");
+    mongoTemplate.dropCollection("menus");
+    mongoTemplate.dropCollection("items");
     redisConfiguration.destroyCache();
   }
 
@@ -199,6 +208,125 @@ public class RestaurantRepositoryServiceTest {
   void searchedAttributesIsCaseInsensitive() {
   }
 
+  @Test
+  void findRestaurantsByItemNameJoinsMenusAndRestaurants(@Autowired MongoTemplate mongoTemplate)
+      throws IOException {
+    for (MenuEntity menuEntity : listOfMenus()) {
+      mongoTemplate.save(menuEntity, "menus");
+    }
+
+    List<Restaurant> foundRestaurantsList = restaurantRepositoryService
+        .findRestaurantsByItemName(20.0, 30.0, "Chicken Briyani", LocalTime.of(18, 1), 3.0);
+
+    assertEquals(1, foundRestaurantsList.size());
+    assertEquals("11", foundRestaurantsList.get(0).getRestaurantId());
+    assertEquals(0, restaurantRepositoryService.findRestaurantsByItemName(20.0, 30.0,
+        "Chicken Briyani", LocalTime.of(17, 59), 3.0).size());
+    assertEquals(0, restaurantRepositoryService.findRestaurantsByItemName(20.0, 30.0,
+        "Mutton Briyani", LocalTime.of(18, 1), 3.0).size());
+  }
+
+  @Test
+  void findRestaurantsByItemAttributesJoinsItemsMenusAndRestaurants(
+      @Autowired MongoTemplate mongoTemplate) throws IOException {
+    for (MenuEntity menuEntity : listOfMenus()) {
+      mongoTemplate.save(menuEntity, "menus");
+    }
+    mongoTemplate.save(spicyItem(), "items");
+
+    List<Restaurant> foundRestaurantsList = restaurantRepositoryService
+        .findRestaurantsByItemAttributes(20.0, 30.0, "Spicy", LocalTime.of(18, 1), 3.0);
+
+    List<String> restaurantIds = new ArrayList<>();
+    for (Restaurant restaurant : foundRestaurantsList) {
+      restaurantIds.add(restaurant.getRestaurantId());
+    }
+    Collections.sort(restaurantIds);
+    assertEquals(Arrays.asList("11", "12"), restaurantIds);
+    assertEquals(0, restaurantRepositoryService.findRestaurantsByItemAttributes(20.0, 30.0,
+        "Spicy", LocalTime.of(17, 59), 3.0).size());
+    assertEquals(0, restaurantRepositoryService.findRestaurantsByItemAttributes(20.0, 30.0,
+        "Sweet", LocalTime.of(18, 1), 3.0).size());
+  }
+
+  @Test
+  void searchJoinsAreIndexed(
+      @Autowired RestaurantRepositoryServiceImpl restaurantRepositoryServiceImpl) {
+    restaurantRepositoryServiceImpl.ensureSearchIndexes();
+
+    assertTrue(isIndexed("restaurants", "restaurantId"));
+    assertTrue(isIndexed("menus", "items.itemId"));
+    assertTrue(isIndexed("restaurants", "latitude", "longitude"));
+    assertTrue(isIndexed("menus", "restaurantId"));
+    assertTrue(isIndexed("items", "itemId"));
+  }
+
+  @Test
+  void findRestaurantsMatchingTagsEachRestaurantOnce(@Autowired MongoTemplate mongoTemplate)
+      throws IOException {
+    for (MenuEntity menuEntity : listOfMenus()) {
+      mongoTemplate.save(menuEntity, "menus");
+    }
+
+    List<SearchMatch> byName = restaurantRepositoryService
+        .findRestaurantsMatching(20.0, 30.0, "A2B", LocalTime.of(18, 1), 3.0);
+    List<SearchMatch> byItemName = restaurantRepositoryService
+        .findRestaurantsMatching(20.0, 30.0, "Chicken Briyani", LocalTime.of(18, 1), 3.0);
+
+    assertEquals(2, byName.size());
+    assertEquals(SearchMatch.Category.NAME, byName.get(0).getCategory());
+    assertEquals(SearchMatch.Category.NAME, byName.get(1).getCategory());
+    assertEquals(1, byItemName.size());
+    assertEquals("11", byItemName.get(0).getRestaurant().getRestaurantId());
+    assertEquals(SearchMatch.Category.ITEM_NAME, byItemName.get(0).getCategory());
+  }
+
+  @Test
+  void findRestaurantsMatchingJoinsItemsForItemAttributes(@Autowired MongoTemplate mongoTemplate)
+      throws IOException {
+    for (MenuEntity menuEntity : listOfMenus()) {
+      mongoTemplate.save(menuEntity, "menus");
+    }
+    mongoTemplate.save(spicyItem(), "items");
+
+    List<SearchMatch> byItemAttributes = restaurantRepositoryService
+        .findRestaurantsMatching(20.0, 30.0, "Spicy", LocalTime.of(18, 1), 3.0);
+
+    assertEquals(2, byItemAttributes.size());
+    for (SearchMatch match : byItemAttributes) {
+      assertEquals(SearchMatch.Category.ITEM_ATTRIBUTES, match.getCategory());
+    }
+    assertEquals(0, restaurantRepositoryService
+        .findRestaurantsMatching(20.0, 30.0, "Spicy", LocalTime.of(17, 59), 3.0).size());
+  }
+
+  private boolean isIndexed(String collectionName, String... keys) {
+    for (IndexInfo indexInfo : mongoTemplate.indexOps(collectionName).getIndexInfo()) {
+      if (indexInfo.isIndexForFields(Arrays.asList(keys))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static ItemEntity spicyItem() {
+    ItemEntity itemEntity = new ItemEntity();
+    itemEntity.setItemId("1");
+    itemEntity.setName("Chicken Briyani");
+    itemEntity.setImageUrl("www.google.com");
+    itemEntity.setPrice(120.0);
+    itemEntity.setAttributes(new ArrayList<>(Collections.singletonList("Spicy")));
+    return itemEntity;
+  }
+
+  private List<MenuEntity> listOfMenus() throws IOException {
+    String fixture =
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_menus.json");
+
+    return objectMapper.readValue(fixture, new TypeReference<List<MenuEntity>>() {
+    });
+  }
+
   private List<RestaurantEntity> listOfRestaurants() throws IOException {
     String fixture =
         FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json");
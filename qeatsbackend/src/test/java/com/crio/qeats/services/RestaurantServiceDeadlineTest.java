@@ -0,0 +1,180 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import static com.crio.qeats.utils.RestaurantFixtures.restaurant;
+import static com.crio.qeats.utils.RestaurantFixtures.restaurantIdsOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.exchanges.GetRestaurantsResponse;
+import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class RestaurantServiceDeadlineTest {
+
+  private static final LocalTime NORMAL_HOURS = LocalTime.of(11, 0);
+
+  @Mock
+  private RestaurantRepositoryService restaurantRepositoryService;
+
+  @InjectMocks
+  private RestaurantServiceImpl restaurantService;
+
+  private ExecutorService searchExecutor;
+
+  @BeforeEach
+  void setup() {
+    searchExecutor = Executors.newFixedThreadPool(4);
+    ReflectionTestUtils.setField(restaurantService, "searchExecutor", searchExecutor);
+    ReflectionTestUtils.setField(restaurantService, "searchDeadlineInMs", 100L);
+    when(restaurantRepositoryService.findRestaurantsByName(any(), any(), any(), any(), any()))
+        .thenReturn(Collections.singletonList(
+            restaurant("11", "A2B", 20.0, 30.0, "10:00", "23:00")));
+    when(restaurantRepositoryService.findRestaurantsByAttributes(any(), any(), any(), any(),
+        any())).thenReturn(new ArrayList<>());
+    when(restaurantRepositoryService.findRestaurantsByItemName(any(), any(), any(), any(),
+        any())).thenReturn(Collections.singletonList(
+            restaurant("13", "A2B", 20.0, 30.0, "10:00", "23:00")));
+    when(restaurantRepositoryService.findRestaurantsByItemAttributes(any(), any(), any(), any(),
+        any())).thenReturn(Collections.singletonList(
+            restaurant("11", "A2B", 20.0, 30.0, "10:00", "23:00")));
+  }
+
+  @AfterEach
+  void teardown() {
+    searchExecutor.shutdownNow();
+  }
+
+  private GetRestaurantsRequest searchFor(String searchFor) {
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    getRestaurantsRequest.setSearchFor(searchFor);
+    return getRestaurantsRequest;
+  }
+
+  @Test
+  void slowLookupIsInterruptedAtTheDeadlineAndTheOthersAreReturned() throws Exception {
+    CountDownLatch interrupted = new CountDownLatch(1);
+    when(restaurantRepositoryService.findRestaurantsByAttributes(any(), any(), any(), any(),
+        any())).thenAnswer(invocation -> {
+          try {
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+          } catch (InterruptedException e) {
+            interrupted.countDown();
+          }
+          return Collections.singletonList(restaurant("12", "A2B", 20.0, 30.0, "10:00", "23:00"));
+        });
+
+    long startedAt = System.nanoTime();
+    GetRestaurantsResponse response =
+        restaurantService.findRestaurantsBySearchQueryMt(searchFor("A2B"), NORMAL_HOURS);
+
+    assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(5));
+    assertEquals(Arrays.asList("11", "13"), restaurantIdsOf(response.getRestaurants()));
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void lookupsRejectedBySaturatedExecutorAreSkippedUnderTheDeadline() {
+    ReflectionTestUtils.setField(restaurantService, "searchExecutor",
+        (Executor) command -> {
+          throw new RejectedExecutionException("saturated");
+        });
+
+    GetRestaurantsResponse response =
+        restaurantService.findRestaurantsBySearchQueryMt(searchFor("A2B"), NORMAL_HOURS);
+
+    assertTrue(response.getRestaurants().isEmpty());
+    verify(restaurantRepositoryService, never())
+        .findRestaurantsByName(any(), any(), any(), any(), any());
+  }
+
+  @Test
+  void lookupsRejectedBySaturatedExecutorRunOnTheRequestThreadWithoutDeadline() {
+    ReflectionTestUtils.setField(restaurantService, "searchExecutor",
+        (Executor) command -> {
+          throw new RejectedExecutionException("saturated");
+        });
+
+    GetRestaurantsResponse response =
+        restaurantService.findRestaurantsBySearchQuery(searchFor("A2B"), NORMAL_HOURS);
+
+    assertEquals(Arrays.asList("11", "13"), restaurantIdsOf(response.getRestaurants()));
+  }
+
+  @Test
+  void multithreadedSearchPagesWithTheRequestCursor() {
+    GetRestaurantsRequest getRestaurantsRequest = searchFor("A2B");
+    getRestaurantsRequest.setLimit(1);
+
+    GetRestaurantsResponse firstPage =
+        restaurantService.findRestaurantsBySearchQueryMt(getRestaurantsRequest, NORMAL_HOURS);
+    getRestaurantsRequest.setCursor(firstPage.getNextCursor());
+    GetRestaurantsResponse lastPage =
+        restaurantService.findRestaurantsBySearchQueryMt(getRestaurantsRequest, NORMAL_HOURS);
+
+    assertEquals(Collections.singletonList("11"), restaurantIdsOf(firstPage.getRestaurants()));
+    assertNotNull(firstPage.getNextCursor());
+    assertEquals(Collections.singletonList("13"), restaurantIdsOf(lastPage.getRestaurants()));
+    assertNull(lastPage.getNextCursor());
+  }
+
+  @Test
+  void failedLookupCancelsTheOthers() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    when(restaurantRepositoryService.findRestaurantsByName(any(), any(), any(), any(), any()))
+        .thenAnswer(invocation -> {
+          started.await(5, TimeUnit.SECONDS);
+          throw new IllegalStateException("lookup failed");
+        });
+    when(restaurantRepositoryService.findRestaurantsByAttributes(any(), any(), any(), any(),
+        any())).thenAnswer(invocation -> {
+          started.countDown();
+          try {
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+          } catch (InterruptedException e) {
+            interrupted.countDown();
+          }
+          return new ArrayList<>();
+        });
+
+    assertThrows(IllegalStateException.class,
+        () -> restaurantService.findRestaurantsBySearchQuery(searchFor("A2B"), NORMAL_HOURS));
+
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+  }
+}
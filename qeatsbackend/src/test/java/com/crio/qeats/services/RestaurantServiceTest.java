@@ -9,6 +9,8 @@ package com.crio.qeats.services;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -24,6 +26,8 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -185,6 +189,80 @@ class RestaurantServiceTest {
     assertEquals(servingRadiusInKms.getValue().toString(), "3.0");
   }
 
+  @Test
+  void pagesNearestRestaurantsFirst() {
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (int i = 5; i >= 1; i--) {
+      restaurants.add(new Restaurant(String.valueOf(i), "Restaurant " + i, "City", "www.google.com",
+          20.0 + i * 0.001, 30.0, "00:00", "23:59", new ArrayList<>()));
+    }
+    when(restaurantRepositoryServiceMock
+        .findAllRestaurantsCloseBy(any(Double.class), any(Double.class), any(LocalTime.class),
+            any(Double.class)))
+        .thenReturn(restaurants);
+
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    getRestaurantsRequest.setLimit(2);
+    GetRestaurantsResponse firstPage = restaurantService
+        .findAllRestaurantsCloseBy(getRestaurantsRequest, LocalTime.of(22, 0));
+
+    assertEquals(2, firstPage.getRestaurants().size());
+    assertEquals("1", firstPage.getRestaurants().get(0).getRestaurantId());
+    assertEquals("2", firstPage.getRestaurants().get(1).getRestaurantId());
+    assertNotNull(firstPage.getNextCursor());
+
+    getRestaurantsRequest.setCursor(firstPage.getNextCursor());
+    GetRestaurantsResponse secondPage = restaurantService
+        .findAllRestaurantsCloseBy(getRestaurantsRequest, LocalTime.of(22, 0));
+
+    assertEquals("3", secondPage.getRestaurants().get(0).getRestaurantId());
+    assertEquals("4", secondPage.getRestaurants().get(1).getRestaurantId());
+
+    getRestaurantsRequest.setCursor(secondPage.getNextCursor());
+    GetRestaurantsResponse lastPage = restaurantService
+        .findAllRestaurantsCloseBy(getRestaurantsRequest, LocalTime.of(22, 0));
+
+    assertEquals(1, lastPage.getRestaurants().size());
+    assertEquals("5", lastPage.getRestaurants().get(0).getRestaurantId());
+    assertNull(lastPage.getNextCursor());
+  }
+
+  @Test
+  void pagesSearchResultsInRankOrder() {
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (int i = 1; i <= 3; i++) {
+      restaurants.add(new Restaurant(String.valueOf(i), "Restaurant " + i, "City",
+          "www.google.com", 20.0, 30.0, "00:00", "23:59", new ArrayList<>()));
+    }
+    when(restaurantRepositoryServiceMock
+        .findRestaurantsByName(any(Double.class), any(Double.class), any(String.class),
+            any(LocalTime.class), any(Double.class)))
+        .thenReturn(Arrays.asList(restaurants.get(0), restaurants.get(1)));
+    when(restaurantRepositoryServiceMock
+        .findRestaurantsByAttributes(any(Double.class), any(Double.class), any(String.class),
+            any(LocalTime.class), any(Double.class)))
+        .thenReturn(Arrays.asList(restaurants.get(1), restaurants.get(2)));
+
+    GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
+    getRestaurantsRequest.setSearchFor("Restaurant");
+    getRestaurantsRequest.setLimit(2);
+    GetRestaurantsResponse firstPage = restaurantService
+        .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 0));
+
+    assertEquals(2, firstPage.getRestaurants().size());
+    assertEquals("1", firstPage.getRestaurants().get(0).getRestaurantId());
+    assertEquals("2", firstPage.getRestaurants().get(1).getRestaurantId());
+    assertNotNull(firstPage.getNextCursor());
+
+    getRestaurantsRequest.setCursor(firstPage.getNextCursor());
+    GetRestaurantsResponse lastPage = restaurantService
+        .findRestaurantsBySearchQuery(getRestaurantsRequest, LocalTime.of(22, 0));
+
+    assertEquals(1, lastPage.getRestaurants().size());
+    assertEquals("3", lastPage.getRestaurants().get(0).getRestaurantId());
+    assertNull(lastPage.getNextCursor());
+  }
+
   @Test
   void findRestaurantsSearchQueryIsEmpty() {
     GetRestaurantsRequest getRestaurantsRequest = new GetRestaurantsRequest(20.0, 30.0);
@@ -0,0 +1,157 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import com.crio.qeats.configs.ExecutorConfiguration;
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.exchanges.GetRestaurantsRequest;
+import com.crio.qeats.repositoryservices.RestaurantRepositoryService;
+import com.crio.qeats.utils.VirtualThreads;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Compares searches on platform and virtual threads under a concurrent load whose lookups
+ * block like Mongo calls do. Every search runs on a request thread, like Tomcat would run it,
+ * and fans its four lookups out on the search executor of the mode under test.
+ * Not a test, run main with optional arguments: searches, concurrent clients, lookup latency
+ * in ms and Tomcat max threads, by default 4000 200 20 200. The virtual mode needs Java 21.
+ */
+public class SearchExecutorBenchmark {
+
+  public static void main(String[] args) throws Exception {
+    int searches = args.length > 0 ? Integer.parseInt(args[0]) : 4000;
+    int clients = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+    long lookupLatencyInMs = args.length > 2 ? Long.parseLong(args[2]) : 20;
+    int tomcatMaxThreads = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+
+    System.out.printf("%d searches, %d concurrent clients, %d ms per lookup%n", searches,
+        clients, lookupLatencyInMs);
+    run(ExecutorConfiguration.PLATFORM_THREADS, searches, clients, lookupLatencyInMs,
+        tomcatMaxThreads);
+    if (VirtualThreads.isAvailable()) {
+      run(ExecutorConfiguration.VIRTUAL_THREADS, searches, clients, lookupLatencyInMs,
+          tomcatMaxThreads);
+    } else {
+      System.out.println("virtual: skipped, needs Java 21 or newer");
+    }
+  }
+
+  private static void run(String threadsMode, int searches, int clients,
+      long lookupLatencyInMs, int tomcatMaxThreads) throws Exception {
+    Executor searchExecutor = new ExecutorConfiguration().searchExecutor(threadsMode, 8, 16,
+        64);
+    if (searchExecutor instanceof InitializingBean) {
+      ((InitializingBean) searchExecutor).afterPropertiesSet();
+    }
+    ExecutorService requestExecutor = ExecutorConfiguration.VIRTUAL_THREADS.equals(threadsMode)
+        ? VirtualThreads.newThreadPerTaskExecutor("http-")
+        : Executors.newFixedThreadPool(tomcatMaxThreads);
+
+    RestaurantServiceImpl restaurantService = new RestaurantServiceImpl();
+    ReflectionTestUtils.setField(restaurantService, "restaurantRepositoryService",
+        blockingRepositoryService(lookupLatencyInMs));
+    ReflectionTestUtils.setField(restaurantService, "searchExecutor", searchExecutor);
+
+    GetRestaurantsRequest request = new GetRestaurantsRequest(20.0, 30.0);
+    request.setSearchFor("biryani");
+    LocalTime currentTime = LocalTime.of(11, 0);
+
+    long[] latencies = new long[searches];
+    CountDownLatch done = new CountDownLatch(searches);
+    ExecutorService clientExecutor = Executors.newFixedThreadPool(clients);
+    long startedAt = System.nanoTime();
+    for (int i = 0; i < searches; i++) {
+      int search = i;
+      clientExecutor.execute(() -> {
+        long sentAt = System.nanoTime();
+        try {
+          requestExecutor.submit(() ->
+              restaurantService.findRestaurantsBySearchQuery(request, currentTime)).get();
+        } catch (Exception e) {
+          e.printStackTrace();
+        }
+        latencies[search] = System.nanoTime() - sentAt;
+        done.countDown();
+      });
+    }
+    done.await();
+    long elapsed = System.nanoTime() - startedAt;
+
+    clientExecutor.shutdown();
+    requestExecutor.shutdown();
+    if (searchExecutor instanceof DisposableBean) {
+      ((DisposableBean) searchExecutor).destroy();
+    } else {
+      ((ExecutorService) searchExecutor).shutdown();
+    }
+
+    Arrays.sort(latencies);
+    System.out.printf("%s: %.0f searches/s, p50 %d ms, p99 %d ms%n", threadsMode,
+        searches / (elapsed / 1e9),
+        TimeUnit.NANOSECONDS.toMillis(latencies[searches / 2]),
+        TimeUnit.NANOSECONDS.toMillis(latencies[(int) (searches * 0.99)]));
+  }
+
+  // Every lookup sleeps for the given latency, like a Mongo query blocking its thread.
+  private static RestaurantRepositoryService blockingRepositoryService(long latencyInMs) {
+    List<Restaurant> restaurants = Collections.singletonList(new Restaurant("1", "Biryani Bowl",
+        "Hyderabad", "www.google.com", 20.0, 30.0, "10:00", "23:00", new ArrayList<>()));
+
+    return new RestaurantRepositoryService() {
+      @Override
+      public List<Restaurant> findAllRestaurantsCloseBy(Double latitude, Double longitude,
+          LocalTime currentTime, Double servingRadiusInKms) {
+        return block();
+      }
+
+      @Override
+      public List<Restaurant> findRestaurantsByName(Double latitude, Double longitude,
+          String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+        return block();
+      }
+
+      @Override
+      public List<Restaurant> findRestaurantsByAttributes(Double latitude, Double longitude,
+          String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+        return block();
+      }
+
+      @Override
+      public List<Restaurant> findRestaurantsByItemName(Double latitude, Double longitude,
+          String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+        return block();
+      }
+
+      @Override
+      public List<Restaurant> findRestaurantsByItemAttributes(Double latitude, Double longitude,
+          String searchString, LocalTime currentTime, Double servingRadiusInKms) {
+        return block();
+      }
+
+      private List<Restaurant> block() {
+        try {
+          Thread.sleep(latencyInMs);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        return restaurants;
+      }
+    };
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.crio.qeats.dto.Restaurant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SearchResultMergerTest {
+
+  private static List<Restaurant> restaurants(String... restaurantIds) {
+    List<Restaurant> restaurants = new ArrayList<>();
+    for (String restaurantId : restaurantIds) {
+      restaurants.add(new Restaurant(restaurantId, "Restaurant " + restaurantId, "Hyderabad",
+          "www.google.com", 20.0, 30.0, "10:00", "23:00", new ArrayList<>()));
+    }
+    return restaurants;
+  }
+
+  private static List<String> idsOf(SearchResultMerger merger) {
+    List<String> ids = new ArrayList<>();
+    for (Restaurant restaurant : merger.getRestaurants()) {
+      ids.add(restaurant.getRestaurantId());
+    }
+    return ids;
+  }
+
+  @Test
+  public void keepsSourceOrderAndFirstPositionOfDuplicates() {
+    SearchResultMerger merger = new SearchResultMerger(null);
+
+    assertFalse(merger.add(restaurants("12", "10")));
+    assertFalse(merger.add(restaurants("11", "12")));
+    assertFalse(merger.add(Collections.emptyList()));
+    assertFalse(merger.add(restaurants("10", "13")));
+
+    assertEquals(Arrays.asList("12", "10", "11", "13"), idsOf(merger));
+  }
+
+  @Test
+  public void stopsOnceTheLimitIsReached() {
+    SearchResultMerger merger = new SearchResultMerger(3);
+
+    assertFalse(merger.add(restaurants("1", "2")));
+    assertTrue(merger.add(restaurants("2", "3", "4")));
+    assertTrue(merger.isFull());
+    assertTrue(merger.add(restaurants("5")));
+
+    assertEquals(Arrays.asList("1", "2", "3"), idsOf(merger));
+  }
+
+  @Test
+  public void zeroLimitIsFullFromTheStart() {
+    SearchResultMerger merger = new SearchResultMerger(0);
+
+    assertTrue(merger.isFull());
+    assertTrue(merger.add(restaurants("1")));
+    assertTrue(merger.getRestaurants().isEmpty());
+  }
+}
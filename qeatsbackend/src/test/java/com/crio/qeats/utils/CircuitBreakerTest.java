@@ -0,0 +1,118 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakerTest {
+
+  private final AtomicLong now = new AtomicLong();
+  private final CircuitBreaker circuitBreaker =
+      new CircuitBreaker("test", 10, 4, 0.5, 50, 0.5, 1000, 2, now::get);
+
+  @Test
+  public void opensWhenHalfOfTheCallsFail() {
+    succeed(2);
+    fail(1);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+
+    fail(1);
+
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    assertFalse(circuitBreaker.tryAcquirePermission());
+  }
+
+  @Test
+  public void opensWhenHalfOfTheCallsAreSlow() {
+    for (int i = 0; i < 4; i++) {
+      assertTrue(circuitBreaker.tryAcquirePermission());
+      circuitBreaker.onSuccess(i % 2 == 0 ? 1_000_000 : 60_000_000);
+    }
+
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+  }
+
+  @Test
+  public void closesAgainAfterSuccessfulTrialCalls() {
+    fail(4);
+    now.addAndGet(1000);
+
+    assertTrue(circuitBreaker.tryAcquirePermission());
+    assertTrue(circuitBreaker.tryAcquirePermission());
+    assertFalse(circuitBreaker.tryAcquirePermission());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+
+    circuitBreaker.onSuccess(0);
+    circuitBreaker.onSuccess(0);
+
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    assertTrue(circuitBreaker.tryAcquirePermission());
+  }
+
+  @Test
+  public void reopensWhenTrialCallFails() {
+    fail(4);
+    now.addAndGet(1000);
+
+    assertTrue(circuitBreaker.tryAcquirePermission());
+    circuitBreaker.onError();
+
+    assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    assertFalse(circuitBreaker.tryAcquirePermission());
+  }
+
+  @Test
+  public void backgroundCallsNeitherTakeNorDecideTrialCalls() {
+    assertTrue(circuitBreaker.tryAcquireBackgroundPermission());
+    fail(4);
+    assertFalse(circuitBreaker.tryAcquireBackgroundPermission());
+    now.addAndGet(1000);
+
+    assertTrue(circuitBreaker.tryAcquirePermission());
+    assertFalse(circuitBreaker.tryAcquireBackgroundPermission());
+    circuitBreaker.onBackgroundSuccess(0);
+    circuitBreaker.onBackgroundSuccess(0);
+    assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+    assertTrue(circuitBreaker.tryAcquirePermission());
+
+    circuitBreaker.onSuccess(0);
+    circuitBreaker.onSuccess(0);
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    assertTrue(circuitBreaker.tryAcquireBackgroundPermission());
+  }
+
+  @Test
+  public void oldCallsLeaveTheWindow() {
+    succeed(8);
+    fail(2);
+    assertEquals(2, circuitBreaker.getStatus().get("failedCalls"));
+
+    succeed(10);
+
+    assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    assertEquals(0, circuitBreaker.getStatus().get("failedCalls"));
+  }
+
+  private void succeed(int calls) {
+    for (int i = 0; i < calls; i++) {
+      assertTrue(circuitBreaker.tryAcquirePermission());
+      circuitBreaker.onSuccess(0);
+    }
+  }
+
+  private void fail(int calls) {
+    for (int i = 0; i < calls; i++) {
+      assertTrue(circuitBreaker.tryAcquirePermission());
+      circuitBreaker.onError();
+    }
+  }
+}
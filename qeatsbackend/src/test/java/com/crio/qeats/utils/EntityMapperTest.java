@@ -0,0 +1,43 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+class EntityMapperTest {
+
+  private static final String FIXTURES = "fixtures/exchanges";
+
+  private final ObjectMapper objectMapper = new ObjectMapper();
+
+  @Test
+  public void restaurantsMapLikeModelMapper() throws IOException {
+    List<RestaurantEntity> restaurantEntities = objectMapper.readValue(
+        FixtureHelpers.fixture(FIXTURES + "/initial_data_set_restaurants.json"),
+        new TypeReference<List<RestaurantEntity>>() {});
+    ModelMapper modelMapper = new ModelMapper();
+
+    for (RestaurantEntity restaurantEntity : restaurantEntities) {
+      Restaurant restaurant = EntityMapper.toRestaurant(restaurantEntity);
+
+      assertEquals(objectMapper.writeValueAsString(
+          modelMapper.map(restaurantEntity, Restaurant.class)),
+          objectMapper.writeValueAsString(restaurant));
+      assertNotSame(restaurantEntity.getAttributes(), restaurant.getAttributes());
+    }
+  }
+}
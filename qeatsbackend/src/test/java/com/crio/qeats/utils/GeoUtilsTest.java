@@ -10,7 +10,12 @@
 package com.crio.qeats.utils;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import ch.hsr.geohash.GeoHash;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import org.junit.jupiter.api.Test;
 
 class GeoUtilsTest {
@@ -29,4 +34,47 @@ class GeoUtilsTest {
     assertEquals(3.04, distanceBetweenA2bHsrAndA2bBtm, 0.1);
   }
 
+  @Test
+  public void coveringGeoHashesContainEveryPointWithinRadius() {
+    List<String> cells = GeoUtils.findGeoHashesCovering(12.9168585, 77.6072902, 5.0, 5);
+
+    assertTrue(cells.contains(GeoHash.geoHashStringWithCharacterPrecision(12.9168585,
+        77.6072902, 5)));
+    for (int bearing = 0; bearing < 360; bearing += 15) {
+      double latitude = 12.9168585 + 4.99 / 111.19 * Math.cos(Math.toRadians(bearing));
+      double longitude = 77.6072902 + 4.99 / (111.19 * Math.cos(Math.toRadians(12.9168585)))
+          * Math.sin(Math.toRadians(bearing));
+
+      assertTrue(cells.contains(GeoHash.geoHashStringWithCharacterPrecision(latitude,
+          longitude, 5)));
+    }
+  }
+
+  @Test
+  public void batchDistanceMatchesPointByPointDistance() {
+    Random random = new Random(42);
+    double[] latitudes = new double[10000];
+    double[] longitudes = new double[latitudes.length];
+    for (int i = 0; i < latitudes.length; i++) {
+      latitudes[i] = 12.9 + random.nextGaussian() * 0.1;
+      longitudes[i] = 77.6 + random.nextGaussian() * 0.1;
+    }
+
+    List<Integer> expected = new ArrayList<>();
+    for (int i = 0; i < latitudes.length; i++) {
+      if (GeoUtils.findDistanceInKm(12.9, 77.6, latitudes[i], longitudes[i]) < 5.0) {
+        expected.add(i);
+      }
+    }
+
+    int[] matches = new int[latitudes.length];
+    int matchCount = GeoUtils.findIndicesWithinRadius(12.9, 77.6, 5.0, latitudes, longitudes,
+        latitudes.length, matches);
+
+    assertEquals(expected.size(), matchCount);
+    for (int i = 0; i < matchCount; i++) {
+      assertEquals(expected.get(i).intValue(), matches[i]);
+    }
+  }
+
 }
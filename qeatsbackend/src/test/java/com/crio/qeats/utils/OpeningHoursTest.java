@@ -0,0 +1,49 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.format.DateTimeParseException;
+import org.junit.jupiter.api.Test;
+
+class OpeningHoursTest {
+
+  @Test
+  public void parsesMinuteOfDay() {
+    assertEquals(0, OpeningHours.toMinuteOfDay("00:00"));
+    assertEquals(18 * 60, OpeningHours.toMinuteOfDay("18:00"));
+    assertEquals(23 * 60 + 59, OpeningHours.toMinuteOfDay("23:59"));
+    assertEquals(9 * 60 + 30, OpeningHours.toMinuteOfDay("09:30:00"));
+    assertThrows(DateTimeParseException.class, () -> OpeningHours.toMinuteOfDay("25:00"));
+  }
+
+  @Test
+  public void openFromOpeningTimeUntilClosingTime() {
+    int opensAt = OpeningHours.toMinuteOfDay("18:00");
+    int closesAt = OpeningHours.toMinuteOfDay("23:00");
+
+    assertFalse(OpeningHours.isOpen(opensAt, closesAt, OpeningHours.toMinuteOfDay("17:59")));
+    assertTrue(OpeningHours.isOpen(opensAt, closesAt, OpeningHours.toMinuteOfDay("18:00")));
+    assertTrue(OpeningHours.isOpen(opensAt, closesAt, OpeningHours.toMinuteOfDay("22:59")));
+    assertFalse(OpeningHours.isOpen(opensAt, closesAt, OpeningHours.toMinuteOfDay("23:00")));
+  }
+
+  @Test
+  public void openPastMidnight() {
+    int opensAt = OpeningHours.toMinuteOfDay("18:00");
+    int closesAt = OpeningHours.toMinuteOfDay("02:00");
+
+    assertTrue(OpeningHours.isOpen(opensAt, closesAt, OpeningHours.toMinuteOfDay("23:30")));
+    assertTrue(OpeningHours.isOpen(opensAt, closesAt, OpeningHours.toMinuteOfDay("01:59")));
+    assertFalse(OpeningHours.isOpen(opensAt, closesAt, OpeningHours.toMinuteOfDay("02:00")));
+    assertFalse(OpeningHours.isOpen(opensAt, closesAt, OpeningHours.toMinuteOfDay("12:00")));
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class RestaurantCursorTest {
+
+  @Test
+  public void decodesWhatWasEncoded() {
+    RestaurantCursor cursor = new RestaurantCursor(GeoUtils.findDistanceInKm(20.0, 30.0,
+        20.027, 30.0), "5c9d0a2b5c7f4b3d2c1e0f9a");
+
+    assertEquals(cursor, RestaurantCursor.decode(cursor.encode()));
+  }
+
+  @Test
+  public void ordersByDistanceThenRestaurantId() {
+    assertTrue(new RestaurantCursor(1.0, "9").compareTo(new RestaurantCursor(2.0, "1")) < 0);
+    assertTrue(new RestaurantCursor(1.0, "1").compareTo(new RestaurantCursor(1.0, "2")) < 0);
+  }
+
+  @Test
+  public void rejectsMalformedTokens() {
+    assertNull(RestaurantCursor.decode("not a cursor"));
+    assertNull(RestaurantCursor.decode("bm9zZXBhcmF0b3I"));
+    assertNull(RestaurantCursor.decode(""));
+  }
+}
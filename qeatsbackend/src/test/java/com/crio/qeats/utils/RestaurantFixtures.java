@@ -0,0 +1,60 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import com.crio.qeats.dto.Restaurant;
+import com.crio.qeats.models.RestaurantEntity;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Restaurants built in code for tests that need a few with specific names, locations or hours,
+ * where the JSON fixtures read by {@link FixtureHelpers} would not fit.
+ */
+public class RestaurantFixtures {
+
+  private RestaurantFixtures() { /* singleton */ }
+
+  /**
+   * A restaurant in Hyderabad with the given name, location, hours and attributes.
+   */
+  public static RestaurantEntity restaurantEntity(String restaurantId, String name,
+      double latitude, double longitude, String opensAt, String closesAt, String... attributes) {
+    RestaurantEntity restaurantEntity = new RestaurantEntity();
+    restaurantEntity.setRestaurantId(restaurantId);
+    restaurantEntity.setName(name);
+    restaurantEntity.setCity("Hyderabad");
+    restaurantEntity.setImageUrl("www.google.com");
+    restaurantEntity.setLatitude(latitude);
+    restaurantEntity.setLongitude(longitude);
+    restaurantEntity.setOpensAt(opensAt);
+    restaurantEntity.setClosesAt(closesAt);
+    restaurantEntity.setAttributes(new ArrayList<>(Arrays.asList(attributes)));
+    return restaurantEntity;
+  }
+
+  /**
+   * The API view of {@link #restaurantEntity}.
+   */
+  public static Restaurant restaurant(String restaurantId, String name, double latitude,
+      double longitude, String opensAt, String closesAt, String... attributes) {
+    return EntityMapper.toRestaurant(restaurantEntity(restaurantId, name, latitude, longitude,
+        opensAt, closesAt, attributes));
+  }
+
+  /**
+   * The restaurantIds of the restaurants, in order.
+   */
+  public static List<String> restaurantIdsOf(List<Restaurant> restaurants) {
+    List<String> restaurantIds = new ArrayList<>();
+    for (Restaurant restaurant : restaurants) {
+      restaurantIds.add(restaurant.getRestaurantId());
+    }
+    return restaurantIds;
+  }
+}
@@ -0,0 +1,28 @@
+/*
+ *
+ *  * Copyright (c) Crio.Do 2019. All rights reserved
+ *
+ */
+
+package com.crio.qeats.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class SearchCursorTest {
+
+  @Test
+  public void decodesWhatWasEncoded() {
+    assertEquals(new SearchCursor(40), SearchCursor.decode(new SearchCursor(40).encode()));
+  }
+
+  @Test
+  public void rejectsMalformedAndNearbyCursors() {
+    assertNull(SearchCursor.decode("not a cursor"));
+    assertNull(SearchCursor.decode(""));
+    assertNull(SearchCursor.decode(new SearchCursor(-1).encode()));
+    assertNull(SearchCursor.decode(new RestaurantCursor(1.0, "10").encode()));
+  }
+}